@@ -0,0 +1,140 @@
+/**
+ * The work measured by the JMH benchmarks in bench/eighttiles/bench. JMH refuses benchmarks in the unnamed package, and a
+ * class in a named package can't refer to the solver's classes, so each benchmark looks a workload up by name through
+ * eighttiles.bench.Workloads and then calls it as an IntSupplier. Every workload returns an int so JMH can consume it.
+ *
+ * Workloads cycle through a fixed corpus of 3x3 boards generated from CORPUS_SEED by BoardGenerator, bucketed by the length of
+ * their shortest solution: EASY up to 10 moves, MEDIUM 11 to 20, HARD 21 and over, and UNSOLVABLE boards. The same seed always gives the
+ * same corpus, so runs of different versions measure the same boards.
+ * Created by help
+ */
+
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+public class SolverWorkloads {
+    public static final long CORPUS_SEED = 867254301L;
+    public static final int CORPUS_SIZE = 64;
+    static final Geometry GEOMETRY = Geometry.of(3, 3);
+    private static final String[] BUCKETS = {"EASY", "MEDIUM", "HARD", "UNSOLVABLE"};
+
+    /**
+     * generates the boards of a bucket
+     * @param bucket
+     * @return
+     */
+    static Board[] corpus(String bucket) {
+        int index = 0;
+        while (!BUCKETS[index].equals(bucket)) {
+            if (++index == BUCKETS.length) {
+                throw new IllegalArgumentException("Unknown bucket " + bucket);
+            }
+        }
+        Board[] boards = new Board[CORPUS_SIZE];
+        if (index < 3) {
+            BoardGenerator generator = new BoardGenerator(GEOMETRY, CORPUS_SEED + index);
+            int min = index == 0 ? 1 : index == 1 ? 11 : 21;
+            int max = index == 0 ? 10 : index == 1 ? 20 : generator.maxDistance();
+            for (int i = 0; i < CORPUS_SIZE; i++) {
+                boards[i] = generator.toBoard(generator.inBand(min, max));
+            }
+            return boards;
+        }
+        Random random = new Random(CORPUS_SEED + index);
+        int count = 0;
+        while (count < CORPUS_SIZE) {
+            int[] tiles = new int[GEOMETRY.size];
+            for (int i = 0; i < tiles.length; i++) {
+                tiles[i] = i;
+            }
+            for (int i = tiles.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int t = tiles[i];
+                tiles[i] = tiles[j];
+                tiles[j] = t;
+            }
+            Board b = new Board(GEOMETRY, tiles);
+            if (!b.isSolvable()) {
+                boards[count++] = b;
+            }
+        }
+        return boards;
+    }
+
+    public static IntSupplier getChildren(String bucket) {
+        Board[] boards = corpus(bucket);
+        int[] next = {0};
+        return () -> boards[next[0]++ & (CORPUS_SIZE - 1)].getChildren().size();
+    }
+
+    public static IntSupplier currentHeuristic(String bucket) {
+        Board[] boards = corpus(bucket);
+        int[] next = {0};
+        return () -> boards[next[0]++ & (CORPUS_SIZE - 1)].currentHeuristic();
+    }
+
+    /**
+     * Manhattan estimates of the whole corpus in one Heuristic.estimateAll call, vectorized when the Vector API is there
+     * @param bucket
+     * @return
+     */
+    public static IntSupplier estimateAll(String bucket) {
+        Board[] boards = corpus(bucket);
+        long[] states = new long[CORPUS_SIZE];
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            states[i] = boards[i].state;
+        }
+        Heuristic heuristic = ManhattanHeuristic.create(GEOMETRY);
+        int[] estimates = new int[CORPUS_SIZE];
+        int[] next = {0};
+        return () -> {
+            heuristic.estimateAll(states, estimates, CORPUS_SIZE);
+            return estimates[next[0]++ & (CORPUS_SIZE - 1)];
+        };
+    }
+
+    public static IntSupplier convertBoardToStringSequence(String bucket) {
+        Board[] boards = corpus(bucket);
+        SearchTree tree = new SearchTree(new Node(boards[0]));
+        int[] next = {0};
+        return () -> tree.convertBoardToStringSequence(boards[next[0]++ & (CORPUS_SIZE - 1)]).length();
+    }
+
+    /**
+     * an A* search of the next board of the corpus straight through this thread's ArenaSolver, without the SearchTree that
+     * Board.autoSolve wraps around it
+     * @param bucket
+     * @return
+     */
+    public static IntSupplier arenaSolve(String bucket) {
+        Board[] boards = corpus(bucket);
+        Heuristic heuristic = new ManhattanHeuristic(GEOMETRY);
+        ArenaSolver solver = ArenaSolver.forThread();
+        int[] next = {0};
+        return () -> solver.solve(boards[next[0]++ & (CORPUS_SIZE - 1)], SearchMode.A_STAR, heuristic, SearchProgress.NONE).length();
+    }
+
+    /**
+     * solves the next board of the corpus end to end
+     * @param bucket
+     * @param mode GREEDY, A_STAR or BIDIRECTIONAL to go through Board.autoSolve, past the SolutionCache so every board is
+     * searched, or IDA_STAR for IdaStarSolver
+     * @param heuristic a HeuristicType
+     * @return
+     */
+    public static IntSupplier autoSolve(String bucket, String mode, String heuristic) {
+        Board[] boards = corpus(bucket);
+        Heuristic h = HeuristicType.valueOf(heuristic).create(GEOMETRY);
+        int[] next = {0};
+        if (mode.equals("IDA_STAR")) {
+            IdaStarSolver solver = new IdaStarSolver(GEOMETRY, h);
+            return () -> solver.solve(boards[next[0]++ & (CORPUS_SIZE - 1)]).length();
+        }
+        SearchMode searchMode = SearchMode.valueOf(mode);
+        return () -> {
+            SearchTree tree = boards[next[0]++ & (CORPUS_SIZE - 1)].autoSolve(searchMode, h, SearchProgress.NONE, false);
+            tree.createPath();
+            return tree.solution.length();
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package eighttiles.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One whole A* solve of a corpus board through ArenaSolver, the search Board.autoSolve runs, without the SearchTree around it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArenaSolveBenchmark {
+    @Param({"EASY", "MEDIUM", "HARD"})
+    public String bucket;
+
+    private IntSupplier arenaSolve;
+
+    @Setup
+    public void setup() {
+        arenaSolve = Workloads.load("arenaSolve", bucket);
+    }
+
+    @Benchmark
+    public int arenaSolve() {
+        return arenaSolve.getAsInt();
+    }
+}
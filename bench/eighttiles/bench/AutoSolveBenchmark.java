@@ -0,0 +1,49 @@
+package eighttiles.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A whole solve of one corpus board, from the search to the finished move list. Each invocation solves the next board of
+ * the bucket, so the sampled latencies spread over the bucket's boards.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AutoSolveBenchmark {
+    @Param({"EASY", "MEDIUM", "HARD", "UNSOLVABLE"})
+    public String bucket;
+
+    @Param({"GREEDY", "A_STAR", "IDA_STAR", "BIDIRECTIONAL"})
+    public String mode;
+
+    @Param({"MANHATTAN", "LINEAR_CONFLICT"})
+    public String heuristic;
+
+    private IntSupplier autoSolve;
+
+    @Setup
+    public void setup() {
+        autoSolve = Workloads.load("autoSolve", bucket, mode, heuristic);
+    }
+
+    @Benchmark
+    public int autoSolve() {
+        return autoSolve.getAsInt();
+    }
+}
@@ -0,0 +1,64 @@
+package eighttiles.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-board operations: Board.getChildren, Board.currentHeuristic and SearchTree.convertBoardToStringSequence, and
+ * Heuristic.estimateAll over the whole corpus of a bucket at once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    @Param({"EASY", "MEDIUM", "HARD", "UNSOLVABLE"})
+    public String bucket;
+
+    private IntSupplier getChildren;
+    private IntSupplier currentHeuristic;
+    private IntSupplier convertBoardToStringSequence;
+    private IntSupplier estimateAll;
+
+    @Setup
+    public void setup() {
+        getChildren = Workloads.load("getChildren", bucket);
+        currentHeuristic = Workloads.load("currentHeuristic", bucket);
+        convertBoardToStringSequence = Workloads.load("convertBoardToStringSequence", bucket);
+        estimateAll = Workloads.load("estimateAll", bucket);
+    }
+
+    @Benchmark
+    public int getChildren() {
+        return getChildren.getAsInt();
+    }
+
+    @Benchmark
+    public int currentHeuristic() {
+        return currentHeuristic.getAsInt();
+    }
+
+    @Benchmark
+    public int convertBoardToStringSequence() {
+        return convertBoardToStringSequence.getAsInt();
+    }
+
+    @Benchmark
+    public int estimateAll() {
+        return estimateAll.getAsInt();
+    }
+}
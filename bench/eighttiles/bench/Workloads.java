@@ -0,0 +1,25 @@
+package eighttiles.bench;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+
+/**
+ * Looks up a workload of SolverWorkloads, which lives in the unnamed package with the rest of the solver.
+ * The lookup happens once per trial in a @Setup method, so the reflection never shows up in a measurement.
+ */
+final class Workloads {
+    private Workloads() {
+    }
+
+    static IntSupplier load(String name, String... args) {
+        try {
+            Class<?>[] types = new Class<?>[args.length];
+            Arrays.fill(types, String.class);
+            Method method = Class.forName("SolverWorkloads").getMethod(name, types);
+            return (IntSupplier) method.invoke(null, (Object[]) args);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not load workload " + name, e);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/**
+ * Anytime Repairing A* (ARA*): a weighted A* search that finds a solution quickly and then keeps improving it until it is
+ * proved shortest or a deadline passes, handing every improvement to a Listener as it goes.
+ *
+ * Each round expands boards in order of cost + weight * heuristic, starting at a weight of 3 and lowering it by 0.5 a round
+ * down to 1, where the search is plain A*. A round's solution is at most weight times longer than a shortest one. Weights
+ * are kept in quarters (SCALE), so priorities stay integers and the frontier can stay a BucketQueue.
+ * Rounds reuse each other's work: the cost and move of every board reached are kept across rounds, and a board reached more
+ * cheaply after it was expanded in the current round is set aside instead of being expanded again. The next round queues the
+ * set-aside boards together with the ones still queued under the new weight. Boards whose cost + heuristic can't beat the
+ * current solution are dropped, so once nothing is left below it, that solution is a shortest one.
+ * A solution found in a round the deadline cut short is bounded by the lowest cost + heuristic left to expand instead of the
+ * round's weight, so every solution handed to the Listener comes with a finite bound. The open queue counts its boards by
+ * cost + heuristic and the lowest among the set-aside ones is kept as they are set aside, so that bound is read off
+ * without touching the frontier once the deadline has passed.
+ * Created by help
+ */
+
+import java.util.Arrays;
+
+public class AnytimeSolver {
+    static final int SCALE = 4;
+    static final int INITIAL_WEIGHT = 3 * SCALE;
+    static final int WEIGHT_STEP = SCALE / 2;
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    /**
+     * receives each solution that is shorter, or proved closer to the shortest, than the one before
+     */
+    public interface Listener {
+        /**
+         * called from the searching thread
+         * @param solution
+         * @param bound the solution is at most bound times as long as a shortest one; 1 once it is proved shortest
+         */
+        void improved(Solution solution, double bound);
+    }
+
+    private final Geometry geometry;
+    private final Heuristic heuristic;
+    private final StateTable seen = new StateTable();
+    private final StateTable closed = new StateTable();
+    private final BucketQueue open = new BucketQueue();
+    private long[] inconsistent = new long[64];
+    private int inconsistentSize;
+    private int[] inconsistentEstimates = new int[64];
+    private long[] drained = new long[64];
+    private int[] estimates = new int[64];
+    private int weight;
+    private int goalCost;
+    // the lowest cost + heuristic among the set-aside boards
+    private int setAsideLowest;
+    private SearchStats stats;
+
+    public AnytimeSolver(Geometry geometry, Heuristic heuristic) {
+        if (!geometry.isPacked()) {
+            throw new IllegalArgumentException(geometry + " boards are too large to search with A*, use IdaStarSolver");
+        }
+        this.geometry = geometry;
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * searches until a shortest solution is proved or the deadline passes
+     * @param start
+     * @param deadlineNanos the System.nanoTime() by which to stop
+     * @param listener told about every improvement, may be null
+     * @return the best solution found, one holding the closest reachable board if the board can't be solved, or null if
+     * the deadline passed before any solution was found
+     */
+    public Solution solve(Board start, long deadlineNanos, Listener listener) {
+        stats = new SearchStats("ANYTIME");
+        stats.start(start);
+        if (!geometry.isSolvable(start.state, start.blank)) {
+            return Solution.unsolvable(start).record(stats);
+        }
+        seen.clear();
+        closed.clear();
+        open.clear();
+        inconsistentSize = 0;
+        setAsideLowest = Integer.MAX_VALUE;
+        weight = INITIAL_WEIGHT;
+        goalCost = Integer.MAX_VALUE;
+        seen.add(start.state, Geometry.NO_MOVE, 0);
+        stats.heuristicEvaluations++;
+        if (start.state == geometry.goal) {
+            goalCost = 0;
+        } else {
+            int h = heuristic.estimate(start.state);
+            open.push(start.state, start.blank, 0, h, weight * h);
+        }
+
+        Solution best = null;
+        double bestBound = Double.POSITIVE_INFINITY;
+        while (true) {
+            stats.iteration(weight);
+            int before = goalCost;
+            boolean finished = goalCost == 0 || improvePath(deadlineNanos);
+            double bound = bestBound;
+            if (finished) {
+                bound = (double) weight / SCALE;
+                weight = Math.max(SCALE, weight - WEIGHT_STEP);
+                requeue();
+                int lowest = open.lowestTotal();
+                bound = lowest >= goalCost ? 1 : Math.min(bound, (double) goalCost / lowest);
+            } else if (goalCost < before) {
+                // a round cut short doesn't prove its weight's bound, but no solution can be shorter than the lowest
+                // cost + heuristic still queued or set aside
+                int lowest = Math.min(open.lowestTotal(), setAsideLowest);
+                bound = lowest >= goalCost ? 1 : Math.min(bound, (double) goalCost / lowest);
+            }
+            if (goalCost < before || (goalCost < Integer.MAX_VALUE && bound < bestBound)) {
+                best = new Solution(start, pathTo(start), stats.expanded);
+                bestBound = bound;
+                if (listener != null) {
+                    listener.improved(best, bound);
+                }
+            }
+            if (!finished || bound == 1) {
+                break;
+            }
+        }
+        if (best == null) {
+            stats.finish(-1);
+            return null;
+        }
+        return new Solution(start, best.moves, stats.expanded).record(stats);
+    }
+
+    /**
+     * expands boards in priority order until none left could lead to a solution cheaper than goalCost at the current weight
+     * @param deadlineNanos
+     * @return false if the deadline passed first
+     */
+    private boolean improvePath(long deadlineNanos) {
+        long[] childStates = new long[4];
+        int[] childBlanks = new int[4];
+        int slot;
+        while ((slot = open.pop()) >= 0) {
+            long state = open.stateOf(slot);
+            int blank = open.blankOf(slot);
+            int cost = open.costOf(slot);
+            int h = open.heuristicOf(slot);
+            if (cost != seen.costOf(state)) {
+                stats.duplicates++;
+                continue;
+            }
+            int priority = cost * SCALE + weight * h;
+            if ((long) priority >= (long) goalCost * SCALE) {
+                open.push(state, blank, cost, h, priority);
+                return true;
+            }
+            closed.add(state, Geometry.NO_MOVE, cost);
+            stats.expanded++;
+            long summary = heuristic.summarize(state);
+            int count = geometry.children(state, blank, childStates, childBlanks);
+            for (int i = 0; i < count; i++) {
+                long child = childStates[i];
+                int target = childBlanks[i];
+                int childCost = cost + 1;
+                int childH = h + heuristic.delta(state, summary, Geometry.tileAt(state, target), target, blank);
+                stats.generated++;
+                stats.heuristicEvaluations++;
+                if (childCost + childH >= goalCost) {
+                    continue;
+                }
+                int oldCost = seen.costOf(child);
+                if (oldCost >= 0 && oldCost <= childCost) {
+                    stats.duplicates++;
+                    continue;
+                }
+                seen.put(child, geometry.direction(blank, target), childCost);
+                if (child == geometry.goal) {
+                    goalCost = childCost;
+                } else if (closed.contains(child)) {
+                    if (inconsistentSize == inconsistent.length) {
+                        inconsistent = Arrays.copyOf(inconsistent, inconsistentSize * 2);
+                    }
+                    inconsistent[inconsistentSize++] = child;
+                    setAsideLowest = Math.min(setAsideLowest, childCost + childH);
+                } else {
+                    open.push(child, target, childCost, childH, childCost * SCALE + weight * childH);
+                }
+            }
+            stats.frontier(open.size());
+            stats.closed(seen.size());
+            if (stats.expanded % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadlineNanos >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * starts a new round: queues the boards still queued and the ones set aside, under the current weight, dropping stale
+     * copies and boards that can't beat goalCost. Queued boards keep the heuristic they were queued with; only the set-aside
+     * ones are estimated, together, with Heuristic.estimateAll.
+     */
+    private void requeue() {
+        int drainedSize = 0;
+        int slot;
+        while ((slot = open.pop()) >= 0) {
+            long state = open.stateOf(slot);
+            if (open.costOf(slot) == seen.costOf(state)) {
+                if (drainedSize == drained.length) {
+                    drained = Arrays.copyOf(drained, drainedSize * 2);
+                    estimates = Arrays.copyOf(estimates, drainedSize * 2);
+                }
+                drained[drainedSize] = state;
+                estimates[drainedSize++] = open.heuristicOf(slot);
+            }
+        }
+        if (inconsistentEstimates.length < inconsistentSize) {
+            inconsistentEstimates = new int[inconsistent.length];
+        }
+        heuristic.estimateAll(inconsistent, inconsistentEstimates, inconsistentSize);
+        stats.heuristicEvaluations += inconsistentSize;
+        closed.clear();
+        open.clear();
+        for (int i = 0; i < drainedSize; i++) {
+            queue(drained[i], estimates[i]);
+        }
+        for (int i = 0; i < inconsistentSize; i++) {
+            queue(inconsistent[i], inconsistentEstimates[i]);
+        }
+        inconsistentSize = 0;
+        setAsideLowest = Integer.MAX_VALUE;
+        closed.clear();
+    }
+
+    /**
+     * queues a board once, using closed to skip boards already queued this round
+     * @param state
+     * @param h
+     */
+    private void queue(long state, int h) {
+        int cost = seen.costOf(state);
+        if (cost + h >= goalCost || !closed.add(state, Geometry.NO_MOVE, cost)) {
+            return;
+        }
+        open.push(state, geometry.findBlank(state), cost, h, cost * SCALE + weight * h);
+    }
+
+    /**
+     * walks back from the goal by undoing the move recorded for each board. A board's recorded predecessor was always
+     * reached more cheaply than it, so the walk ends at the start.
+     * @param start
+     * @return
+     */
+    private byte[] pathTo(Board start) {
+        byte[] moves = new byte[goalCost];
+        long state = geometry.goal;
+        int blank = geometry.goalBlank;
+        int length = 0;
+        while (state != start.state) {
+            int move = seen.moveOf(state);
+            int previous = geometry.target(blank, move ^ 1);
+            state = Geometry.slide(state, blank, previous);
+            blank = previous;
+            moves[length++] = (byte) move;
+        }
+        moves = Arrays.copyOf(moves, length);
+        for (int i = 0; i < length / 2; i++) {
+            byte t = moves[i];
+            moves[i] = moves[length - 1 - i];
+            moves[length - 1 - i] = t;
+        }
+        return moves;
+    }
+}
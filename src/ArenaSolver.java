@@ -0,0 +1,118 @@
+/**
+ * The A* and greedy searches of Board.autoSolve, run over a NodeArena so that expanding a board creates no objects.
+ * Boards are never built during the search: children come from Geometry.children into two small reused arrays, their
+ * heuristics from Heuristic.delta, and each one becomes a node in the arena. A StateTable maps every board seen to its node,
+ * stored in its cost field, and the BucketQueue holds node indexes in its state field.
+ *
+ * Like SearchTree, greedy search never looks at a board twice, and A* moves a board it reaches more cheaply to the new path
+ * and queues it again, skipping the stale queue entry when it comes up.
+ *
+ * Each thread gets one solver from forThread, whose arena, table and queue are kept between solves, so once a thread has
+ * run a search of a given size, later searches of that size allocate nothing but their Solution. A solver isn't safe to
+ * share between threads.
+ * Created by help
+ */
+
+import java.util.concurrent.CancellationException;
+
+public class ArenaSolver {
+    private static final ThreadLocal<ArenaSolver> pool = ThreadLocal.withInitial(ArenaSolver::new);
+
+    private final NodeArena nodes = new NodeArena();
+    private final StateTable index = new StateTable();
+    private final BucketQueue open = new BucketQueue();
+    private final long[] childStates = new long[4];
+    private final int[] childBlanks = new int[4];
+
+    /**
+     * @return this thread's solver
+     */
+    public static ArenaSolver forThread() {
+        return pool.get();
+    }
+
+    /**
+     * searches with A* or greedy best-first search
+     * @param start a packed board
+     * @param mode A_STAR or GREEDY
+     * @param heuristic
+     * @param progress told every SearchProgress.INTERVAL expanded boards, and may cancel the search
+     * @return the solution, shortest for A_STAR, or one holding the closest reachable board if the board can't be solved
+     * @throws CancellationException if progress cancels the search
+     */
+    public Solution solve(Board start, SearchMode mode, Heuristic heuristic, SearchProgress progress) {
+        Geometry geometry = start.geometry;
+        if (!geometry.isPacked()) {
+            throw new IllegalArgumentException(geometry + " boards are too large to search with A*, use IdaStarSolver");
+        }
+        SearchStats stats = new SearchStats(mode.name());
+        stats.start(start);
+        if (!geometry.isSolvable(start.state, start.blank)) {
+            return Solution.unsolvable(start).record(stats);
+        }
+        boolean aStar = mode == SearchMode.A_STAR;
+        nodes.reset();
+        index.clear();
+        open.clear();
+        int h = heuristic.estimate(start.state);
+        stats.heuristicEvaluations++;
+        int best = h;
+        int root = nodes.add(start.state, start.blank, -1, Geometry.NO_MOVE, 0, h);
+        index.put(start.state, Geometry.NO_MOVE, root);
+        open.push(root, start.blank, 0, h, h);
+
+        int slot;
+        while ((slot = open.pop()) >= 0) {
+            int node = (int) open.stateOf(slot);
+            int cost = nodes.costOf(node);
+            if (open.costOf(slot) != cost) {
+                stats.duplicates++;
+                continue;
+            }
+            long state = nodes.stateOf(node);
+            if (state == geometry.goal) {
+                return new Solution(start, nodes.pathTo(node), stats.expanded).record(stats);
+            }
+            stats.expanded++;
+            if (stats.expanded % SearchProgress.INTERVAL == 0) {
+                if (progress.isCancelled()) {
+                    stats.finish(-1);
+                    throw new CancellationException("search cancelled after " + stats.expanded + " boards");
+                }
+                progress.update(stats.expanded, best);
+            }
+            int blank = nodes.blankOf(node);
+            int parentH = nodes.heuristicOf(node);
+            long summary = heuristic.summarize(state);
+            int count = geometry.children(state, blank, childStates, childBlanks);
+            for (int i = 0; i < count; i++) {
+                long child = childStates[i];
+                int target = childBlanks[i];
+                int move = geometry.direction(blank, target);
+                stats.generated++;
+                int old = index.costOf(child);
+                if (old >= 0 && (!aStar || nodes.costOf(old) <= cost + 1)) {
+                    stats.duplicates++;
+                    continue;
+                }
+                int c;
+                if (old >= 0) {
+                    c = old;
+                    nodes.reparent(c, node, move, cost + 1);
+                } else {
+                    int childH = parentH + heuristic.delta(state, summary, Geometry.tileAt(state, target), target, blank);
+                    stats.heuristicEvaluations++;
+                    c = nodes.add(child, target, node, move, cost + 1, childH);
+                    index.put(child, Geometry.NO_MOVE, c);
+                    best = Math.min(best, childH);
+                }
+                int childH = nodes.heuristicOf(c);
+                open.push(c, target, cost + 1, childH, aStar ? cost + 1 + childH : childH);
+            }
+            stats.frontier(open.size());
+            stats.closed(index.size());
+        }
+        // every solvable board reaches the goal, so this only happens if the heuristic is broken
+        throw new IllegalStateException("search ran dry before reaching the goal");
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Solves a file of boards without the GUI: java BatchSolver [--unordered] [file]
+ * Boards are read one per line from file, or from standard input if no file is given, in the format the interactive loop
+ * accepts. The board shape comes from -Deighttiles.rows and -Deighttiles.cols.
+ *
+ * Boards are solved on a work-stealing ForkJoinPool with one solver per worker thread, so a solver's buffers are reused for
+ * every board it solves. Each board prints one line: the board, a tab, then the number of moves and the moves as U, D, L
+ * and R, or "unsolvable" or "invalid", or "error" if solving it failed. Results come out in input order unless --unordered
+ * is given, in which case each is printed as soon as it is solved. At most a few boards per thread are read ahead of the
+ * output, so memory stays flat however long the input is.
+ * Created by help
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+public class BatchSolver {
+    private static final int READ_AHEAD_PER_THREAD = 64;
+
+    final Geometry geometry;
+    final boolean ordered;
+    private final ForkJoinPool pool;
+    private final int readAhead;
+    private final Semaphore window;
+    private final ThreadLocal<IdaStarSolver> solvers;
+
+    public BatchSolver(Geometry geometry, boolean ordered, int threads) {
+        this.geometry = geometry;
+        this.ordered = ordered;
+        pool = new ForkJoinPool(threads);
+        readAhead = threads * READ_AHEAD_PER_THREAD;
+        window = new Semaphore(readAhead);
+        Heuristic heuristic = Constants.defaultHeuristic.create(geometry);
+        solvers = ThreadLocal.withInitial(() -> new IdaStarSolver(geometry, heuristic));
+    }
+
+    /**
+     * solves every line read from in and prints a result line for each, returning once all of them are printed
+     * @param in
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public void solveAll(BufferedReader in) throws IOException, InterruptedException {
+        ArrayDeque<CompletableFuture<String>> pending = new ArrayDeque<>();
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            String input = line.trim();
+            if (ordered) {
+                while (!window.tryAcquire()) {
+                    print(pending.poll().join());
+                }
+                pending.add(solveAsync(input));
+                while (!pending.isEmpty() && pending.peek().isDone()) {
+                    print(pending.poll().join());
+                }
+            } else {
+                window.acquire();
+                solveAsync(input).thenAccept(this::print);
+            }
+        }
+        while (!pending.isEmpty()) {
+            print(pending.poll().join());
+        }
+        window.acquire(readAhead);
+        window.release(readAhead);
+        pool.shutdown();
+    }
+
+    /**
+     * @param input
+     * @return the line to print for input, which is an error line if solving it throws, so it always gets printed and
+     * frees its place in the window
+     */
+    private CompletableFuture<String> solveAsync(String input) {
+        return CompletableFuture.supplyAsync(() -> solveLine(input), pool)
+                .handle((result, e) -> e == null ? result : input + "\terror");
+    }
+
+    private void print(String result) {
+        synchronized (Constants.outputStream) {
+            Constants.outputStream.println(result);
+        }
+        window.release();
+    }
+
+    /**
+     * solves one board, using the distance oracle when the shape has one, and otherwise the SolutionCache or IDA*
+     * @param input
+     * @return the line to print for it
+     */
+    String solveLine(String input) {
+        int[] tiles;
+        try {
+            tiles = Board.parseTiles(input, geometry.size);
+        } catch (NumberFormatException e) {
+            tiles = null;
+        }
+        if (!Board.isPermutation(tiles)) {
+            return input + "\tinvalid";
+        }
+        Board board = new Board(geometry, tiles);
+        if (!board.isSolvable()) {
+            return input + "\tunsolvable";
+        }
+        DistanceOracle oracle = DistanceOracle.forGeometry(geometry);
+        Solution solution = oracle != null ? oracle.solve(board) : board.solveCached(() -> solvers.get().solve(board));
+        return input + "\t" + solution.length() + "\t" + solution;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        boolean ordered = true;
+        String file = null;
+        for (String arg : args) {
+            if (arg.equals("--unordered")) {
+                ordered = false;
+            } else {
+                file = arg;
+            }
+        }
+        BatchSolver solver = new BatchSolver(Geometry.DEFAULT, ordered, Runtime.getRuntime().availableProcessors());
+        try (BufferedReader in = file != null ? Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)
+                : new BufferedReader(new InputStreamReader(Constants.inputStream, StandardCharsets.UTF_8))) {
+            solver.solveAll(in);
+        }
+    }
+}
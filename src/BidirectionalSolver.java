@@ -0,0 +1,156 @@
+/**
+ * Breadth-first search from the start board and from the goal at the same time, stopping where the two meet. A shortest
+ * solution of length d costs two searches of depth about d / 2 instead of one of depth d, which for a branching factor b is
+ * roughly b^(d/2) boards on each side instead of b^d.
+ *
+ * Each side remembers the boards it has seen in its own StateTable, with the move that reached them and their depth, and
+ * keeps only its current layer in a flat array. The side with the smaller layer is expanded next, one whole layer at a time.
+ * The first layer that produces a board the other side has seen holds a shortest solution, so the search stops once that
+ * layer is done, keeping the cheapest meeting in it.
+ * The search is blind, so it takes no heuristic. What it reports to a SearchProgress as the best heuristic is how far the
+ * boards reached from the start are at least from the goal: one more than the depth the goal side has searched.
+ * Created by help
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+public class BidirectionalSolver {
+    private final Geometry geometry;
+    long expanded;
+    private SearchStats stats;
+    private SearchProgress progress;
+
+    public BidirectionalSolver(Geometry geometry) {
+        if (!geometry.isPacked()) {
+            throw new IllegalArgumentException(geometry + " boards are too large for a bidirectional search, use IdaStarSolver");
+        }
+        this.geometry = geometry;
+    }
+
+    public Solution solve(Board start) {
+        return solve(start, SearchProgress.NONE);
+    }
+
+    /**
+     * searches for a shortest solution of the given board
+     * @param start
+     * @param progress told every SearchProgress.INTERVAL expanded boards, and may cancel the search
+     * @return the solution, or one holding the closest reachable board if the board can't be solved
+     * @throws CancellationException if progress cancels the search
+     */
+    public Solution solve(Board start, SearchProgress progress) {
+        this.progress = progress;
+        stats = new SearchStats(SearchMode.BIDIRECTIONAL.name());
+        stats.start(start);
+        expanded = 0;
+        if (!geometry.isSolvable(start.state, start.blank)) {
+            return Solution.unsolvable(start).record(stats);
+        }
+        if (start.state == geometry.goal) {
+            return new Solution(start, new byte[0], 0).record(stats);
+        }
+        Side forward = new Side(start.state, false);
+        Side backward = new Side(geometry.goal, true);
+        long meeting = 0;
+        while (meeting == 0) {
+            if (forward.size <= backward.size) {
+                meeting = forward.expand(backward);
+            } else {
+                meeting = backward.expand(forward);
+            }
+        }
+
+        int forwardDepth = forward.seen.costOf(meeting);
+        byte[] moves = new byte[forwardDepth + backward.seen.costOf(meeting)];
+        long state = meeting;
+        int blank = geometry.findBlank(state);
+        for (int i = forwardDepth - 1; i >= 0; i--) {
+            int move = forward.seen.moveOf(state);
+            moves[i] = (byte) move;
+            int previous = geometry.target(blank, move ^ 1);
+            state = Geometry.slide(state, blank, previous);
+            blank = previous;
+        }
+        state = meeting;
+        blank = geometry.findBlank(state);
+        for (int i = forwardDepth; i < moves.length; i++) {
+            int move = backward.seen.moveOf(state) ^ 1;
+            moves[i] = (byte) move;
+            int next = geometry.target(blank, move);
+            state = Geometry.slide(state, blank, next);
+            blank = next;
+        }
+        stats.expanded = expanded;
+        return new Solution(start, moves, expanded).record(stats);
+    }
+
+    /**
+     * one direction of the search: every board it has seen, and the boards of its deepest layer
+     */
+    private class Side {
+        final StateTable seen = new StateTable();
+        final boolean fromGoal;
+        long[] layer = new long[16];
+        int size;
+        int depth;
+
+        Side(long root, boolean fromGoal) {
+            this.fromGoal = fromGoal;
+            seen.add(root, Geometry.NO_MOVE, 0);
+            layer[size++] = root;
+        }
+
+        /**
+         * replaces the current layer with the next one
+         * @param other
+         * @return the meeting board with the fewest moves in total, or 0 if this layer didn't reach the other side
+         */
+        long expand(Side other) {
+            stats.iteration(depth + 1);
+            long[] next = new long[Math.max(16, size * 2)];
+            int nextSize = 0;
+            long meeting = 0;
+            int best = Integer.MAX_VALUE;
+            long[] childStates = new long[4];
+            int[] childBlanks = new int[4];
+            for (int i = 0; i < size; i++) {
+                long state = layer[i];
+                int blank = geometry.findBlank(state);
+                expanded++;
+                if (expanded % SearchProgress.INTERVAL == 0) {
+                    if (progress.isCancelled()) {
+                        stats.expanded = expanded;
+                        stats.finish(-1);
+                        throw new CancellationException("search cancelled after " + expanded + " boards");
+                    }
+                    progress.update(expanded, (fromGoal ? depth : other.depth) + 1);
+                }
+                int count = geometry.children(state, blank, childStates, childBlanks);
+                for (int c = 0; c < count; c++) {
+                    long child = childStates[c];
+                    stats.generated++;
+                    if (!seen.add(child, geometry.direction(blank, childBlanks[c]), depth + 1)) {
+                        stats.duplicates++;
+                        continue;
+                    }
+                    int otherDepth = other.seen.costOf(child);
+                    if (otherDepth >= 0 && otherDepth < best) {
+                        best = otherDepth;
+                        meeting = child;
+                    }
+                    if (nextSize == next.length) {
+                        next = Arrays.copyOf(next, nextSize * 2);
+                    }
+                    next[nextSize++] = child;
+                }
+            }
+            layer = next;
+            size = nextSize;
+            depth++;
+            stats.frontier(size + other.size);
+            stats.closed(seen.size() + other.seen.size());
+            return meeting;
+        }
+    }
+}
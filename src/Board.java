@@ -7,17 +7,26 @@
  */
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Random;
 import java.util.Scanner;
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
 
 import static java.lang.System.exit;
 
 public class Board {
-    public int grid[][];
-    HashMap<Integer, Coordinate> mapFromIntegerToCoord = new HashMap<>();
+    final Geometry geometry;
+    long state;
+    int blank;
+    int[] cells;
 
     public Board(int choice) {
+        this(choice, Geometry.DEFAULT);
+    }
+
+    public Board(int choice, Geometry geometry) {
+        this.geometry = geometry;
         if (choice == 1) {
             generateBoard(new Random(System.currentTimeMillis()));
         } else if (choice == 2) {
@@ -30,108 +39,215 @@ public class Board {
     }
 
     /**
-     * Performs a deep copy of a board by copying its grid and mappings.
+     * creates a board of the given shape from a row-major array of tiles
+     * @param geometry
+     * @param tiles
+     */
+    public Board(Geometry geometry, int[] tiles) {
+        this.geometry = geometry;
+        setTiles(tiles);
+    }
+
+    /**
+     * Copies a board. A packed board is two primitives, so this never touches the heap beyond the Board itself.
      * @param b
      */
     public Board(Board b) {
-        grid = new int[Constants.dimX][Constants.dimY];
-        for (int i = 0; i < Constants.dimX; i++) {
-            for (int j = 0; j < Constants.dimY; j++) {
-                grid[i][j] = b.grid[i][j];
-                mapFromIntegerToCoord.put(b.grid[i][j], new Coordinate(i, j));
-            }
-        }
+        geometry = b.geometry;
+        state = b.state;
+        blank = b.blank;
+        cells = b.cells == null ? null : b.cells.clone();
+    }
+
+    Board(Geometry geometry, long state, int blank) {
+        this.geometry = geometry;
+        this.state = state;
+        this.blank = blank;
     }
 
     /**
      * compares the grid of this to board board for equality
-     * @param b
+     * @param o
      * @return
      */
-    public boolean equals(Board b) {
-        for (int i = 0; i < Constants.dimX; i++) {
-            if (!grid[i].equals(b.grid[i])) {
-                return false;
-            }
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Board)) {
+            return false;
         }
-        return true;
+        Board b = (Board) o;
+        return geometry == b.geometry && state == b.state && Arrays.equals(cells, b.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return cells == null ? Long.hashCode(state) : Arrays.hashCode(cells);
     }
 
     /**
      * generated a board using a random seeded with time.
-     * 1. generate 9 unique, random integers (0-9)
+     * 1. generate unique integers from 0 to the number of cells
      * 2. export them into an array
-     * 3. convert into an integer array
-     * 4. set up grid
+     * 3. shuffle it into a solvable board
+     * 4. pack it into the state
      *
      * @param rand
      */
     private void generateBoard(Random rand) {
-        grid = new int[Constants.dimX][Constants.dimY];
-        int[] boardVals = new int[Constants.gridSize];
-        for (int i = 0; i < (Constants.gridSize); i++) {
+        int[] boardVals = new int[geometry.size];
+        for (int i = 0; i < geometry.size; i++) {
             boardVals[i] = i;
         }
         shuffleNumbers(boardVals, rand);
-        int arrIndex = 0;
-        for (int i = 0; i < Constants.dimX; i++) {
-            for (int j = 0; j < Constants.dimY; j++) {
-                int num = boardVals[arrIndex++];
-                mapFromIntegerToCoord.put(num, new Coordinate(i, j));
-                grid[i][j] = num;
-            }
-        }
+        setTiles(boardVals);
     }
 
     /**
      * Generates board based on user input
      * 1. take input from user
-     * 2. parse char by char
-     * 3. input into grid
+     * 2. parse it into tiles, asking again until they are each tile exactly once
+     * 3. pack into the state
      */
     private void generateBoard() {
         Scanner scan = new Scanner(Constants.inputStream);
-        Constants.outputStream.println("Some boards such as 728045163 are impossible.");
-        Constants.outputStream.println("Others such as 245386107 are possible.");
-        Constants.outputStream.print("Enter a string of 6 digits (including 0) for the board --> ");
-        String input = scan.nextLine().trim();
-        grid = new int[Constants.dimX][Constants.dimY];
-        int strIndex = 0;
-
-        for (int i = 0; i < Constants.dimX; i++) {
-            for (int j = 0; j < Constants.dimY; j++) {
-                int num = Character.getNumericValue(input.charAt(strIndex++));
-                mapFromIntegerToCoord.put(num, new Coordinate(i, j));
-                grid[i][j] = num;
+        if (geometry.size == 9) {
+            Constants.outputStream.println("Some boards such as 728045163 are impossible.");
+            Constants.outputStream.println("Others such as 245386107 are possible.");
+        }
+        Constants.outputStream.print("Enter a string of " + geometry.size + " digits (including 0, a-z for 10 and up) for the board --> ");
+        while (true) {
+            int[] tiles;
+            try {
+                tiles = parseTiles(scan.nextLine(), geometry.size);
+            } catch (NumberFormatException e) {
+                tiles = null;
+            }
+            if (isPermutation(tiles)) {
+                setTiles(tiles);
+                return;
+            }
+            Constants.outputStream.print("That isn't a board. Enter each of 0 to " + (geometry.size - 1) + " exactly once --> ");
+        }
+    }
+
+    /**
+     * parses a board in row-major order. Tiles are either separated by spaces or commas, or written one character each,
+     * using a-z for 10 to 35 on boards with more than 9 tiles.
+     * @param input
+     * @param size
+     * @return the tiles, or null if input doesn't hold exactly size of them
+     */
+    static int[] parseTiles(String input, int size) {
+        input = input.trim();
+        String[] tokens = input.split("[\\s,]+");
+        int[] tiles = new int[size];
+        if (tokens.length > 1) {
+            if (tokens.length != size) {
+                return null;
+            }
+            for (int i = 0; i < size; i++) {
+                tiles[i] = Integer.parseInt(tokens[i]);
+            }
+        } else {
+            if (input.length() != size) {
+                return null;
+            }
+            for (int i = 0; i < size; i++) {
+                tiles[i] = Character.getNumericValue(input.charAt(i));
             }
         }
+        return tiles;
     }
 
+    /**
+     * @param tiles the result of parseTiles
+     * @return whether tiles holds each of 0 to tiles.length - 1 exactly once
+     */
+    static boolean isPermutation(int[] tiles) {
+        if (tiles == null) {
+            return false;
+        }
+        boolean[] seen = new boolean[tiles.length];
+        for (int tile : tiles) {
+            if (tile < 0 || tile >= tiles.length || seen[tile]) {
+                return false;
+            }
+            seen[tile] = true;
+        }
+        return true;
+    }
 
     /**
-     * Takes an array and shuffles it a random number of times
+     * replaces the contents of the board with a row-major array of tiles.
+     * Boards that are too large to pack keep their own copy of the array instead.
+     * @param tiles
+     */
+    public void setTiles(int[] tiles) {
+        if (geometry.isPacked()) {
+            state = geometry.pack(tiles);
+            blank = geometry.findBlank(state);
+        } else {
+            cells = tiles.clone();
+            for (int k = 0; k < cells.length; k++) {
+                if (cells[k] == 0) {
+                    blank = k;
+                }
+            }
+        }
+    }
+
+    /**
+     * copies the tiles into a row-major array
+     * @param tiles
+     */
+    public void copyTiles(int[] tiles) {
+        for (int k = 0; k < geometry.size; k++) {
+            tiles[k] = tile(k);
+        }
+    }
+
+    /**
+     * returns the tile at the given row and column
+     * @param row
+     * @param col
+     * @return
+     */
+    public int tileAt(int row, int col) {
+        return tile(row * geometry.cols + col);
+    }
+
+    private int tile(int k) {
+        return cells == null ? Geometry.tileAt(state, k) : cells[k];
+    }
+
+
+    /**
+     * Shuffles an array uniformly, then swaps two tiles if that left the board unsolvable
      * @param arr
      * @param rand
      */
     private void shuffleNumbers(int[] arr, Random rand) {
-        int numTimesToSwap = rand.nextInt(200);
-        for (int i = 0; i < numTimesToSwap; i++) {
-            int index1 = rand.nextInt((Constants.gridSize) - 1);
-            int index2 = rand.nextInt((Constants.gridSize) - 1);
-            int tmp = arr[index2];
-            arr[index2] = arr[index1];
-            arr[index1] = tmp;
+        for (int i = arr.length - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int tmp = arr[i];
+            arr[i] = arr[j];
+            arr[j] = tmp;
         }
+        BoardGenerator.fixParity(geometry, arr);
     }
 
     /**
      * prints out the current grid
      */
     public void printBoard() {
-        for (int i = 0; i < Constants.dimX; i++) {
+        int width = Integer.toString(geometry.size - 1).length();
+        String format = "%" + width + "d ";
+        String empty = String.format("%" + (width + 1) + "s", "");
+        for (int i = 0; i < geometry.rows; i++) {
             Constants.outputStream.print("  ");
-            for (int j = 0; j < Constants.dimY; j++) {
-                Constants.outputStream.print(grid[i][j] == 0 ? "  " : grid[i][j] + " ");
+            for (int j = 0; j < geometry.cols; j++) {
+                int tile = tileAt(i, j);
+                Constants.outputStream.print(tile == 0 ? empty : String.format(format, tile));
             }
             Constants.outputStream.print("\n");
         }
@@ -142,14 +258,12 @@ public class Board {
      * @return
      */
     public boolean isSolved() {
-        for (int i = 0; i < Constants.dimX; i++) {
-            for (int j = 0; j < Constants.dimY; j++) {
-                if (i == Constants.dimX - 1 && j == Constants.dimY - 1) { //if at bottom right corner, index should be 0
-                    if (grid[i][j] != 0) {
-                        return false;
-                    }
-                } else if (grid[i][j] != (i * Constants.dimX) + j + 1) //every other index should satisfy its spot
-                    return false;
+        if (cells == null) {
+            return state == geometry.goal;
+        }
+        for (int k = 0; k < cells.length - 1; k++) {
+            if (cells[k] != k + 1) {
+                return false;
             }
         }
         return true;
@@ -160,15 +274,25 @@ public class Board {
      * @param n
      */
     public void makeMove(int n) {
-        if (mapFromIntegerToCoord.containsKey(n)) {
-            Coordinate coord = mapFromIntegerToCoord.remove(n);
-            Coordinate zeroCoord = mapFromIntegerToCoord.remove(0);
-            grid[zeroCoord.X][zeroCoord.Y] = grid[coord.X][coord.Y];
-            grid[coord.X][coord.Y] = 0;
-            mapFromIntegerToCoord.put(0, new Coordinate(coord.X, coord.Y));
-            mapFromIntegerToCoord.put(n, new Coordinate(zeroCoord.X, zeroCoord.Y));
+        int dir = directionOf(n);
+        if (dir != Geometry.NO_MOVE) {
+            move(dir);
+        }
+    }
 
+    /**
+     * moves the blank one step in the given direction
+     * @param dir
+     */
+    public void move(int dir) {
+        int target = geometry.target(blank, dir);
+        if (cells == null) {
+            state = Geometry.slide(state, blank, target);
+        } else {
+            cells[blank] = cells[target];
+            cells[target] = 0;
         }
+        blank = target;
     }
 
     /**
@@ -177,37 +301,38 @@ public class Board {
      * @return
      */
     public boolean isValidMove(int n) {
-        Coordinate coord = mapFromIntegerToCoord.get(n);
-        if (mapFromIntegerToCoord.containsKey(n)) {
-            if (coord.X + 1 <= Constants.dimX - 1) {
-                if (grid[coord.X + 1][coord.Y] == 0) {
-                    return true;
-                }
-            }
-            if (coord.Y + 1 <= Constants.dimY - 1) {
-                if (grid[coord.X][coord.Y + 1] == 0) {
-                    return true;
-                }
-            }
-            if (coord.X - 1 >= 0) {
-                if (grid[coord.X - 1][coord.Y] == 0) {
-                    return true;
-                }
-            }
-            if (coord.Y - 1 >= 0) {
-                if (grid[coord.X][coord.Y - 1] == 0) {
-                    return true;
-                }
+        return directionOf(n) != Geometry.NO_MOVE;
+    }
+
+    /**
+     * returns the direction the blank has to move in to slide tile n, or NO_MOVE if n isn't next to the blank
+     * @param n
+     * @return
+     */
+    private int directionOf(int n) {
+        if (n <= 0 || n >= geometry.size) {
+            return Geometry.NO_MOVE;
+        }
+        for (int dir = 0; dir < 4; dir++) {
+            int target = geometry.target(blank, dir);
+            if (target >= 0 && tile(target) == n) {
+                return dir;
             }
         }
-        return false;
+        return Geometry.NO_MOVE;
     }
 
     /**
      *  while the board is unsolved, allows the user to:
      *      a. make a move (if it is valid)
      *      board. prompt for an automatic solution (if one exists, otherwise print the best board found)
+     *         's' searches greedily, 'a' searches for the shortest solution with A*, 'i' with IDA*,
+     *         'p' with A* spread over every core, 'b' searching from both ends,
+     *         't' with an anytime search that prints every better solution it finds until Constants.anytimeDeadlineMillis,
+     *         'm' with A* held to Constants.nodeBudget boards
+     *         boards too large for autoSolve always use IDA*
      *      c. quit
+     *  the stats of the search are printed once it is done
      *
      */
     public void interactiveLoop() {
@@ -215,6 +340,11 @@ public class Board {
         int boardCounter = 1;
         Constants.outputStream.println("Initial board is:");
         boolean autoSolve = false;
+        SearchMode mode = SearchMode.GREEDY;
+        boolean iterative = false;
+        boolean parallel = false;
+        boolean anytime = false;
+        boolean bounded = false;
         while (!isSolved() && !autoSolve) {
             Constants.outputStream.println(boardCounter++ + ".");
             printBoard();
@@ -224,8 +354,26 @@ public class Board {
             char m = move.charAt(0);
             if (m == 's') {
                 autoSolve = true;
+            } else if (m == 'a') {
+                autoSolve = true;
+                mode = SearchMode.A_STAR;
+            } else if (m == 'i') {
+                autoSolve = true;
+                iterative = true;
+            } else if (m == 'b') {
+                autoSolve = true;
+                mode = SearchMode.BIDIRECTIONAL;
+            } else if (m == 'p') {
+                autoSolve = true;
+                parallel = true;
+            } else if (m == 't') {
+                autoSolve = true;
+                anytime = true;
+            } else if (m == 'm') {
+                autoSolve = true;
+                bounded = true;
             } else {
-                int numericInput = Character.getNumericValue(m);
+                int numericInput = move.matches("\\d+") ? Integer.parseInt(move) : -1;
                 if (numericInput == 0) {
                     Constants.outputStream.println("\nExiting program.");
                     exit(0);
@@ -238,10 +386,46 @@ public class Board {
             }
         }
         if (!isSolved()) {
-            SearchTree tree = autoSolve();
+            Constants.outputStream.println("Solving puzzle automatically..........................");
+        }
+        if (!isSolved() && (iterative || parallel || anytime || bounded || !geometry.isPacked())) {
+            Solution solution = null;
+            if (bounded && geometry.isPacked()) {
+                solution = autoSolveBounded(Constants.nodeBudget);
+            }
+            if (anytime && geometry.isPacked()) {
+                solution = autoSolveAnytime(Constants.anytimeDeadlineMillis, (s, bound) -> Constants.outputStream.println(
+                        String.format("Found %d moves, at most %.2f times the shortest", s.length(), bound)));
+                if (solution == null) {
+                    Constants.outputStream.println("No solution within " + Constants.anytimeDeadlineMillis + " ms");
+                }
+            }
+            if (solution == null) {
+                solution = parallel && geometry.isPacked() ? autoSolveParallel() : autoSolveIdaStar();
+            }
+            Constants.outputStream.println("Search stats: " + solution.stats);
+            if (solution.budgetExhausted) {
+                Constants.outputStream.println("\nNode budget of " + Constants.nodeBudget + " exhausted. Closest board found:");
+                solution.bestBoardFound.printBoard();
+                Constants.outputStream.println("Heuristic value: " + solution.bestBoardFound.currentHeuristic());
+                Constants.outputStream.println("\nExiting program.");
+            } else if (!solution.isSolved()) {
+                Constants.outputStream.println("\nThat puzzle is impossible to solve. Closest reachable board:");
+                solution.bestBoardFound.printBoard();
+                Constants.outputStream.println("Heuristic value: " + solution.bestBoardFound.currentHeuristic());
+                Constants.outputStream.println("\nExiting program.");
+            } else {
+                for (int i = 0; i <= solution.length(); i++) {
+                    Constants.outputStream.println(i + 1 + ".");
+                    solution.boardAfter(i).printBoard();
+                }
+                Constants.outputStream.println("\nDone.");
+            }
+        } else if (!isSolved()) {
+            SearchTree tree = autoSolve(mode);
+            Constants.outputStream.println("Search stats: " + tree.stats);
             if (tree.bestBoardHeuristic > 0) {
-                Constants.outputStream.println("\nAll " +tree.oldBoards.size() + " moves have been tried.");
-                Constants.outputStream.println("That puzzle is impossible to solve. Best board found:");
+                Constants.outputStream.println("\nThat puzzle is impossible to solve. Closest reachable board:");
                 tree.bestBoardFound.printBoard();
                 Constants.outputStream.println("Heuristic value: " + tree.bestBoardHeuristic);
                 Constants.outputStream.println("\nExiting program.");
@@ -249,11 +433,9 @@ public class Board {
                 Constants.outputStream.println("1.");
                 printBoard();
                 tree.createPath();
-                ArrayList<Board> list = tree.path;
-
-                for (int i = 0; i < list.size(); i++) {
+                for (int i = 0; i < tree.solution.length(); i++) {
                     Constants.outputStream.println(i + 2 + ".");
-                    list.get(i).printBoard();
+                    tree.getNextBoard().printBoard();
                 }
                 Constants.outputStream.println("\nDone.");
             }
@@ -267,64 +449,229 @@ public class Board {
      * @return SearchTree
      */
     public SearchTree autoSolve() {
-        Constants.outputStream.println("Solving puzzle automatically..........................");
-        Node v = new Node(null, this);
-        SearchTree tree = new SearchTree(v);
-        boolean unsolvable = false;
-        while (!v.board.isSolved() && !unsolvable) {
-            ArrayList<Board> children = v.board.getChildren();
-            for (Board b : children) {
-                tree.addNode(new Node(v.board, b));
-            }
-            Node nextMove = tree.pop();
-            if (nextMove == null) {
-                unsolvable = true;
-            } else {
-                v = nextMove;
-            }
+        return autoSolve(SearchMode.GREEDY);
+    }
+
+    /**
+     * attempts to solve the board by repeatedly expanding the best node in the queue, as ordered by the given mode. The search
+     * runs in this thread's ArenaSolver, so it creates no objects per board, and the tree follows the solution it finds.
+     * Boards that can't be solved are caught before searching, and the tree just holds the closest reachable board.
+     * A_STAR and BIDIRECTIONAL find shortest solutions, so on larger shapes they are answered from the SolutionCache when the
+     * board is on a solution found before, and their solutions are cached. On shapes small enough for a DistanceOracle, A_STAR skips the search and follows the oracle's optimal path instead;
+     * GREEDY and BIDIRECTIONAL still search, so they show what their own search finds.
+     * @param mode
+     * @return SearchTree
+     */
+    public SearchTree autoSolve(SearchMode mode) {
+        return autoSolve(mode, SearchProgress.NONE);
+    }
+
+    /**
+     * the same as autoSolve(mode), reporting to progress as the search goes and stopping if it is cancelled
+     * @param mode
+     * @param progress
+     * @return SearchTree
+     * @throws CancellationException if progress cancels the search
+     */
+    public SearchTree autoSolve(SearchMode mode, SearchProgress progress) {
+        DistanceOracle oracle = mode == SearchMode.A_STAR && isSolvable() ? DistanceOracle.forGeometry(geometry) : null;
+        if (oracle == null) {
+            return autoSolve(mode, defaultHeuristic(), progress);
         }
+        SearchTree tree = new SearchTree(new Node(new Board(this), 0), mode);
+        tree.follow(oracle.solve(this));
         return tree;
     }
 
     /**
-     * Calculates the intended coordinate of a given integer.
-     *  ex:
-     *      1's intended coordinate in a 3x3 grid is (0,0)
-     *      2's intended coordinate in a 3x3 grid is (0,1)
-     *      8's intended coordinate in a 3x3 grid is (2,1)
-     * @param n
-     * @return a coordinate with the intended position of n
+     * the same as autoSolve(mode), estimating each board with the given heuristic
+     * @param mode
+     * @param heuristic
+     * @return SearchTree
      */
-    private static Coordinate getIntendedCoordinate(int n) {
-        int intX = (n - 1) / Constants.dimX;
-        int intY = (n - 1) % Constants.dimY;
-        return new Coordinate(intX, intY);
+    public SearchTree autoSolve(SearchMode mode, Heuristic heuristic) {
+        return autoSolve(mode, heuristic, SearchProgress.NONE);
     }
 
     /**
-     * calculates the number of moves required to get a given number into it's intended location
-     * @param n
+     * the same as autoSolve(mode, heuristic), reporting to progress every SearchProgress.INTERVAL expanded boards and
+     * stopping if it is cancelled
+     * @param mode
+     * @param heuristic unused by BIDIRECTIONAL, which searches blind from both ends
+     * @param progress
+     * @return SearchTree
+     * @throws CancellationException if progress cancels the search
+     */
+    public SearchTree autoSolve(SearchMode mode, Heuristic heuristic, SearchProgress progress) {
+        return autoSolve(mode, heuristic, progress, true);
+    }
+
+    /**
+     * the same as autoSolve(mode, heuristic, progress), going past the SolutionCache unless cached is set, so that every
+     * call searches, as benchmarks need
+     * @param mode
+     * @param heuristic
+     * @param progress
+     * @param cached
+     * @return SearchTree
+     */
+    SearchTree autoSolve(SearchMode mode, Heuristic heuristic, SearchProgress progress, boolean cached) {
+        if (!geometry.isPacked()) {
+            throw new IllegalArgumentException(geometry + " boards are too large to search with autoSolve, use autoSolveIdaStar");
+        }
+        // the tree only follows the solution found below, so its root needs no heuristic
+        SearchTree tree = new SearchTree(new Node(new Board(this), 0), mode);
+        if (mode == SearchMode.BIDIRECTIONAL && isSolvable()) {
+            Supplier<Solution> search = () -> new BidirectionalSolver(geometry).solve(this, progress);
+            tree.follow(cached ? solveCached(search) : search.get());
+            return tree;
+        }
+        if (!isSolvable()) {
+            tree.stats.start(this);
+            tree.stats.heuristicEvaluations++;
+            tree.bestBoardFound = closestReachableBoard();
+            tree.bestBoardHeuristic = heuristic.estimate(tree.bestBoardFound.state);
+            tree.stats.finish(-1);
+            return tree;
+        }
+        Supplier<Solution> search = () -> ArenaSolver.forThread().solve(this, mode, heuristic, progress);
+        tree.follow(cached && mode == SearchMode.A_STAR ? solveCached(search) : search.get());
+        return tree;
+    }
+
+    /**
+     * determines whether the goal can be reached from this board, without searching
      * @return
      */
-    private int movesFromIntendedSlot(int n) {
-        Coordinate currCoordinate = mapFromIntegerToCoord.get(n);
-        if (n == 0) {
-            return Math.abs((Constants.dimX - 1) - currCoordinate.X) + Math.abs((Constants.dimY - 1) - currCoordinate.Y);
-        } else {
-            Coordinate intendedCoordinate = getIntendedCoordinate(n);
-            return Math.abs(intendedCoordinate.X - currCoordinate.X) + Math.abs(intendedCoordinate.Y - currCoordinate.Y);
+    public boolean isSolvable() {
+        if (cells == null) {
+            return geometry.isSolvable(state, blank);
         }
+        return geometry.isSolvable(cells, blank);
     }
 
     /**
-     * calculates the heuristic of the current board by calculating the moves required to get the number at each index into it's desired index
+     * For a board that can't be solved, returns the reachable board with the lowest heuristic. That is always the goal with
+     * two neighbouring tiles swapped (heuristic 2), since every board with a heuristic below 2 can be solved. Of those swaps,
+     * picks the one whose tiles are closest to where this board has them, which takes a pass over the possible swaps
+     * instead of a search of the whole unsolvable half of the state space.
+     * @return
+     */
+    public Board closestReachableBoard() {
+        int[] cellOf = new int[geometry.size];
+        for (int k = 0; k < geometry.size; k++) {
+            cellOf[tile(k)] = k;
+        }
+        int bestA = -1;
+        int bestB = -1;
+        int bestCost = Integer.MAX_VALUE;
+        for (int a = 0; a < geometry.goalBlank; a++) {
+            for (int dir = 0; dir < 4; dir++) {
+                int b = geometry.target(a, dir);
+                if (b < a || b == geometry.goalBlank) {
+                    continue;
+                }
+                // tile a + 1 has to end up in cell b and tile b + 1 in cell a
+                int cost = geometry.distance(b + 1, cellOf[a + 1]) + geometry.distance(a + 1, cellOf[b + 1])
+                        - geometry.distance(a + 1, cellOf[a + 1]) - geometry.distance(b + 1, cellOf[b + 1]);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestA = a;
+                    bestB = b;
+                }
+            }
+        }
+        int[] tiles = new int[geometry.size];
+        for (int k = 0; k < geometry.goalBlank; k++) {
+            tiles[k] = k + 1;
+        }
+        tiles[bestA] = bestB + 1;
+        tiles[bestB] = bestA + 1;
+        return new Board(geometry, tiles);
+    }
+
+    /**
+     * finds a shortest solution with iterative-deepening A*, which only keeps the current path in memory.
+     * Uses the default heuristic for this board's shape.
+     * Use this instead of autoSolve for boards whose search space is too large to remember, such as 4x4 boards.
+     * @return Solution
+     */
+    public Solution autoSolveIdaStar() {
+        return solveCached(() -> new IdaStarSolver(geometry, defaultHeuristic()).solve(this));
+    }
+
+    /**
+     * finds a solution with A* while holding at most maxNodes boards, forgetting the least promising ones when it runs out
+     * of room. Only packed boards can be searched this way.
+     * @param maxNodes
+     * @return Solution, marked budgetExhausted with the closest board found if no solution fits in maxNodes boards or the
+     * search stops getting closer to one
+     */
+    public Solution autoSolveBounded(int maxNodes) {
+        return new BoundedAStarSolver(geometry, defaultHeuristic(), maxNodes).solve(this);
+    }
+
+    /**
+     * finds a solution with an anytime search, which finds one within milliseconds and then shortens it until it is
+     * proved shortest or deadlineMillis have passed. Only packed boards can be searched this way.
+     * @param deadlineMillis
+     * @param listener told about every improvement
+     * @return the best solution found, or null if the deadline passed before any was found
+     */
+    public Solution autoSolveAnytime(long deadlineMillis, AnytimeSolver.Listener listener) {
+        long deadline = System.nanoTime() + deadlineMillis * 1_000_000;
+        return new AnytimeSolver(geometry, defaultHeuristic()).solve(this, deadline, listener);
+    }
+
+    /**
+     * finds a shortest solution with hash-distributed A* on one thread per core. Only packed boards can be searched this way.
+     * @return Solution
+     * @throws CancellationException if this thread is interrupted while the search runs
+     */
+    public Solution autoSolveParallel() {
+        return solveCached(() -> new ParallelAStarSolver(geometry, defaultHeuristic(),
+                Runtime.getRuntime().availableProcessors()).solve(this));
+    }
+
+    /**
+     * answers from the SolutionCache if this board is in it, and otherwise runs solver and caches its solution. Shapes small
+     * enough for a DistanceOracle aren't cached, and always run solver.
+     * @param solver a search that returns shortest solutions
+     * @return Solution
+     */
+    Solution solveCached(Supplier<Solution> solver) {
+        SolutionCache cache = isSolvable() && geometry.size > DistanceOracle.MAX_SIZE ? SolutionCache.forGeometry(geometry) : null;
+        Solution solution = cache != null ? cache.lookup(this) : null;
+        if (solution == null) {
+            solution = solver.get();
+            if (cache != null) {
+                cache.store(solution);
+            }
+        }
+        return solution;
+    }
+
+    /**
+     * the heuristic chosen with -Deighttiles.heuristic, for this board's shape
+     * @return
+     */
+    Heuristic defaultHeuristic() {
+        return Constants.defaultHeuristic.create(geometry);
+    }
+
+    /**
+     * calculates the heuristic of the current board by calculating the moves required to get the number at each index into it's desired index.
+     * The blank isn't counted, which keeps the heuristic from overestimating so A* finds shortest paths.
      * @return
      */
     public int currentHeuristic() {
+        if (cells == null) {
+            return geometry.manhattan(state);
+        }
         int total = 0;
-        for (int i = 0; i < Constants.dimX; i++) {
-            for (int j = 0; j < Constants.dimY; j++) {
-                total += movesFromIntendedSlot(grid[i][j]);
+        for (int k = 0; k < cells.length; k++) {
+            if (cells[k] != 0) {
+                total += geometry.distance(cells[k], k);
             }
         }
         return total;
@@ -335,30 +682,17 @@ public class Board {
      * @return
      */
     public ArrayList<Board> getChildren() {
-        ArrayList<Board> children = new ArrayList<>();
-        Coordinate posOfZero = mapFromIntegerToCoord.get(0);
-
-        if (posOfZero.X + 1 <= Constants.dimX - 1) {
-            Board aBoard = new Board(this);
-            aBoard.makeMove(grid[posOfZero.X + 1][posOfZero.Y]);
-            children.add(aBoard);
-        }
-        if (posOfZero.Y + 1 <= Constants.dimY - 1) {
-            Board aBoard = new Board(this);
-            aBoard.makeMove(grid[posOfZero.X][posOfZero.Y + 1]);
-            children.add(aBoard);
-        }
-        if (posOfZero.X - 1 >= 0) {
-            Board aBoard = new Board(this);
-            aBoard.makeMove(grid[posOfZero.X - 1][posOfZero.Y]);
-            children.add(aBoard);
-        }
-        if (posOfZero.Y - 1 >= 0) {
-            Board aBoard = new Board(this);
-            aBoard.makeMove(grid[posOfZero.X][posOfZero.Y - 1]);
-            children.add(aBoard);
+        ArrayList<Board> children = new ArrayList<>(4);
+        for (int dir = 0; dir < 4; dir++) {
+            int target = geometry.target(blank, dir);
+            if (target >= 0 && cells == null) {
+                children.add(new Board(geometry, Geometry.slide(state, blank, target), target));
+            } else if (target >= 0) {
+                Board child = new Board(this);
+                child.move(dir);
+                children.add(child);
+            }
         }
         return children;
     }
 }
-
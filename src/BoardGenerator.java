@@ -0,0 +1,301 @@
+/**
+ * Generates solvable boards in packed form, from a seed so the same seed always gives the same boards.
+ *
+ * For shapes small enough for a DistanceOracle the difficulty is exact: the distance of every solvable board is worked out
+ * once per shape by the oracle's breadth-first search, and the boards are sorted by distance, so the boards with a shortest
+ * solution between any two lengths form one range. A board is drawn uniformly from that range and decoded from its oracle
+ * index, which takes a few dozen operations and no search.
+ * Larger shapes have too many boards to sort, so they are generated by random walks from the goal that never undo their
+ * last move. A walk of n moves gives a board whose shortest solution is at most n moves and has the same parity, and a walk
+ * is only kept if the default heuristic, which never overestimates, puts it at least minMoves from the goal, so the board
+ * is in the band for certain. Bands the walks can't reach that way are refused rather than filled with easier boards.
+ *
+ * Run it to write boards for BatchSolver or a benchmark corpus: java BoardGenerator count minMoves [maxMoves [seed]]
+ * Created by help
+ */
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class BoardGenerator {
+    private static final ConcurrentHashMap<Geometry, int[][]> sorted = new ConcurrentHashMap<>();
+    static final int MAX_WALKS = 100_000;
+    // walks are estimated this many at a time, through Heuristic.estimateAll
+    private static final int WALK_BATCH = 256;
+
+    final Geometry geometry;
+    private final SplittableRandom random;
+    private final int[] tiles;
+    // the lower bound walks are checked against, for shapes without a distance oracle
+    private Heuristic lowerBound;
+    private long[] walks;
+    private int[] walkEstimates;
+    // walks[walkNext..walkCount) are still unchecked walks for the band walkMin..walkMax
+    private int walkNext;
+    private int walkCount;
+    private int walkMin = -1;
+    private int walkMax = -1;
+
+    public BoardGenerator(Geometry geometry, long seed) {
+        if (!geometry.isPacked()) {
+            throw new IllegalArgumentException(geometry + " boards are too large to generate packed");
+        }
+        this.geometry = geometry;
+        random = new SplittableRandom(seed);
+        tiles = new int[geometry.size];
+    }
+
+    /**
+     * @return a board drawn uniformly from every solvable board
+     */
+    public long randomState() {
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = i;
+        }
+        for (int i = tiles.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = tiles[i];
+            tiles[i] = tiles[j];
+            tiles[j] = t;
+        }
+        fixParity(geometry, tiles);
+        return geometry.pack(tiles);
+    }
+
+    /**
+     * makes a shuffled board solvable, if it isn't already, by swapping its first two tiles other than the blank, which
+     * pairs each unsolvable board with exactly one solvable one and so keeps a uniform shuffle uniform
+     * @param geometry
+     * @param tiles
+     */
+    static void fixParity(Geometry geometry, int[] tiles) {
+        int blank = 0;
+        while (tiles[blank] != 0) {
+            blank++;
+        }
+        if (!geometry.isSolvable(tiles, blank)) {
+            int a = blank == 0 ? 1 : 0;
+            int b = blank == a + 1 ? a + 2 : a + 1;
+            int t = tiles[a];
+            tiles[a] = tiles[b];
+            tiles[b] = t;
+        }
+    }
+
+    /**
+     * @param minMoves
+     * @param maxMoves
+     * @return a board whose shortest solution is between minMoves and maxMoves long. Boards of shapes with a distance oracle
+     * are drawn uniformly from all such boards; others come from a walk of between minMoves and maxMoves moves whose
+     * heuristic is at least minMoves
+     * @throws IllegalArgumentException if no board is in the band, or for larger shapes if MAX_WALKS walks found none
+     */
+    public long inBand(int minMoves, int maxMoves) {
+        if (minMoves > maxMoves) {
+            throw new IllegalArgumentException("empty band " + minMoves + ".." + maxMoves);
+        }
+        if (geometry.size > DistanceOracle.MAX_SIZE) {
+            return walkInBand(minMoves, maxMoves);
+        }
+        int[][] table = sortedByDistance(geometry);
+        int[] starts = table[1];
+        int from = starts[Math.max(0, Math.min(minMoves, starts.length - 1))];
+        int to = starts[Math.max(0, Math.min(maxMoves + 1, starts.length - 1))];
+        if (from == to) {
+            throw new IllegalArgumentException("no " + geometry + " board is " + minMoves + ".." + maxMoves + " moves from the goal");
+        }
+        return unrank(table[0][from + random.nextInt(to - from)]);
+    }
+
+    /**
+     * draws walks in batches, estimates each batch at once and returns the next walk the heuristic puts at least minMoves
+     * from the goal. The rest of the batch is kept for the next board of the same band.
+     */
+    private long walkInBand(int minMoves, int maxMoves) {
+        if (lowerBound == null) {
+            lowerBound = Constants.defaultHeuristic.create(geometry);
+            walks = new long[WALK_BATCH];
+            walkEstimates = new int[WALK_BATCH];
+        }
+        if (minMoves != walkMin || maxMoves != walkMax) {
+            walkNext = walkCount = 0;
+            walkMin = minMoves;
+            walkMax = maxMoves;
+        }
+        for (int tried = 0; ; tried += WALK_BATCH) {
+            while (walkNext < walkCount) {
+                int i = walkNext++;
+                if (walkEstimates[i] >= minMoves) {
+                    return walks[i];
+                }
+            }
+            if (tried >= MAX_WALKS) {
+                throw new IllegalArgumentException("no walk of " + minMoves + ".." + maxMoves + " moves on a " + geometry
+                        + " board was provably at least " + minMoves + " moves from the goal after " + MAX_WALKS + " tries");
+            }
+            for (int i = 0; i < WALK_BATCH; i++) {
+                walks[i] = randomWalk(minMoves + random.nextInt(maxMoves - minMoves + 1));
+            }
+            lowerBound.estimateAll(walks, walkEstimates, WALK_BATCH);
+            walkNext = 0;
+            walkCount = WALK_BATCH;
+        }
+    }
+
+    /**
+     * @param moves
+     * @return a board whose shortest solution is exactly moves long, for shapes with a distance oracle
+     */
+    public long atDistance(int moves) {
+        if (geometry.size > DistanceOracle.MAX_SIZE) {
+            throw new IllegalArgumentException(geometry + " boards are too large to generate at an exact distance, use inBand");
+        }
+        return inBand(moves, moves);
+    }
+
+    /**
+     * @param moves
+     * @return the board reached by a random walk of the given length from the goal that never undoes its last move
+     */
+    public long randomWalk(int moves) {
+        long state = geometry.goal;
+        int blank = geometry.goalBlank;
+        int last = Geometry.NO_MOVE;
+        for (int i = 0; i < moves; i++) {
+            int dir;
+            int target;
+            do {
+                dir = random.nextInt(4);
+                target = geometry.target(blank, dir);
+            } while (target < 0 || dir == (last ^ 1));
+            state = Geometry.slide(state, blank, target);
+            blank = target;
+            last = dir;
+        }
+        return state;
+    }
+
+    /**
+     * fills states with boards from inBand
+     * @param states
+     * @param minMoves
+     * @param maxMoves
+     */
+    public void fill(long[] states, int minMoves, int maxMoves) {
+        for (int i = 0; i < states.length; i++) {
+            states[i] = inBand(minMoves, maxMoves);
+        }
+    }
+
+    /**
+     * @return the longest shortest solution of any board of this shape, for shapes with a distance oracle
+     */
+    public int maxDistance() {
+        if (geometry.size > DistanceOracle.MAX_SIZE) {
+            throw new IllegalArgumentException(geometry + " boards are too large to know their hardest board");
+        }
+        int[] starts = sortedByDistance(geometry)[1];
+        return starts.length - 2;
+    }
+
+    public Board toBoard(long state) {
+        return new Board(geometry, state, geometry.findBlank(state));
+    }
+
+    /**
+     * sorts the oracle indexes of every solvable board by distance, once per shape
+     * @param geometry
+     * @return the sorted indexes, and the position in them where each distance starts, with one extra entry for the end
+     */
+    private static int[][] sortedByDistance(Geometry geometry) {
+        return sorted.computeIfAbsent(geometry, g -> {
+            byte[] distances = DistanceOracle.buildTable(g);
+            int max = 0;
+            for (byte d : distances) {
+                max = Math.max(max, d);
+            }
+            int[] starts = new int[max + 2];
+            for (byte d : distances) {
+                starts[d + 1]++;
+            }
+            for (int d = 1; d < starts.length; d++) {
+                starts[d] += starts[d - 1];
+            }
+            int[] next = starts.clone();
+            int[] indexes = new int[distances.length];
+            for (int i = 0; i < distances.length; i++) {
+                indexes[next[distances[i]]++] = i;
+            }
+            return new int[][] {indexes, starts};
+        });
+    }
+
+    /**
+     * the inverse of DistanceOracle.index
+     * @param index
+     * @return
+     */
+    long unrank(int index) {
+        int size = geometry.size;
+        int perBlank = DistanceOracle.entries(size) / size;
+        int blank = index / perBlank;
+        long state = decode(blank, (index % perBlank) * 2);
+        if (!geometry.isSolvable(state, blank)) {
+            state = decode(blank, (index % perBlank) * 2 + 1);
+        }
+        return state;
+    }
+
+    /**
+     * places the tiles other than the blank in reading order from their Lehmer code
+     * @param blank
+     * @param rank
+     * @return
+     */
+    private long decode(int blank, int rank) {
+        int size = geometry.size;
+        int[] digits = tiles;
+        for (int i = size - 2; i >= 0; i--) {
+            int radix = size - 1 - i;
+            digits[i] = rank % radix;
+            rank /= radix;
+        }
+        int unused = ((1 << size) - 1) & ~1;
+        long state = 0;
+        int i = 0;
+        for (int k = 0; k < size; k++) {
+            if (k == blank) {
+                continue;
+            }
+            int tile = unused;
+            for (int skip = digits[i++]; skip > 0; skip--) {
+                tile &= tile - 1;
+            }
+            tile = Integer.numberOfTrailingZeros(tile);
+            unused &= ~(1 << tile);
+            state |= (long) tile << (4 * k);
+        }
+        return state;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            Constants.outputStream.println("usage: java BoardGenerator count minMoves [maxMoves [seed]]");
+            return;
+        }
+        int count = Integer.parseInt(args[0]);
+        int minMoves = Integer.parseInt(args[1]);
+        int maxMoves = args.length > 2 ? Integer.parseInt(args[2]) : minMoves;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+        BoardGenerator generator = new BoardGenerator(Geometry.DEFAULT, seed);
+        StringBuilder sb = new StringBuilder();
+        for (int n = 0; n < count; n++) {
+            long state = generator.inBand(minMoves, maxMoves);
+            sb.setLength(0);
+            for (int k = 0; k < generator.geometry.size; k++) {
+                sb.append(k == 0 ? "" : " ").append(Geometry.tileAt(state, k));
+            }
+            Constants.outputStream.println(sb);
+        }
+    }
+}
@@ -0,0 +1,482 @@
+/**
+ * A* that never holds more than a fixed number of boards, in the style of SMA* (simplified memory-bounded A*). Many of these
+ * can run side by side in a fixed-size heap, because a solve never grows past its node budget. Its arrays start small and
+ * double as the search needs them, so a small search on a large budget stays small.
+ *
+ * The search expands boards in order of cost + heuristic like A*. When it needs room for a new board and the budget is used up,
+ * it forgets the worst leaf: the queued board with the highest f that has no children in memory, taken from a second queue
+ * that only holds leaves. The leaf's parent remembers
+ * the lowest f among its forgotten children and is queued again with that f, so the forgotten branch is regrown if it ever
+ * becomes the most promising one. Boards whose every child is held by a cheaper path are dead ends and are freed at once.
+ * Only leaves are forgotten, so every board in memory still has its parent, and the path to the goal can be walked back.
+ * A board in memory that is reached by a cheaper path is moved to that path: the boards below it, whose costs came from the
+ * dearer path, are dropped, and it is queued again as a leaf with its new f.
+ * Among boards of equal f the deepest is expanded first and the shallowest forgotten first, so the search keeps pushing one
+ * path forward instead of trading the same branches in and out of memory.
+ *
+ * The result is shortest whenever a shortest path fits in the budget. Once the lowest f is at least the budget, every
+ * solution has more boards than the budget holds, and the search stops with a Solution marked budgetExhausted, holding the
+ * board closest to the goal it found. A budget only a little larger than the solution can make the search regrow the same
+ * boards without end, so it also stops with budgetExhausted once it has expanded MAX_REGROWTHS times the budget's worth of
+ * boards without the lowest f rising. The answer is then only shortest-if-found, not proof that no solution fits.
+ * Created by help
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+public class BoundedAStarSolver {
+    /**
+     * a rough upper bound on the bytes each board of the budget takes: its slot in the index at the table's load factor,
+     * its entries in the node arrays, and up to two entries in each queue
+     */
+    public static final int BYTES_PER_NODE = 160;
+    private static final int INFINITE = Integer.MAX_VALUE;
+    private static final int DEPTHS = 128;
+    private static final int INITIAL_CAPACITY = 1024;
+    /**
+     * how many times over the budget the search may expand boards at one f before it gives up. On 3x3 boards, searches that
+     * find their solution stay under about 250.
+     */
+    static final int MAX_REGROWTHS = 1024;
+
+    private final Geometry geometry;
+    private final Heuristic heuristic;
+    final int maxNodes;
+
+    // the node of each board in memory, stored as its cost
+    private final StateTable index = new StateTable();
+    private final BucketQueue open = new BucketQueue();
+    private final BucketQueue leaves = new BucketQueue();
+    private final long[] childStates = new long[4];
+    private final int[] childBlanks = new int[4];
+    // dropBelow's own, since it runs while expand is still walking childStates
+    private final long[] belowStates = new long[4];
+    private final int[] belowBlanks = new int[4];
+    private long[] states;
+    private byte[] blanks;
+    private byte[] moves;
+    private int[] costs;
+    private int[] heuristics;
+    private int[] priorities;
+    private int[] forgotten;
+    private byte[] children;
+    private boolean[] queued;
+    private int[] free;
+    private int[] scratch;
+    private int freeCount;
+    // nodes below used have been handed out at least once
+    private int used;
+    private int root;
+    private int expanding;
+    private int bestNode;
+    private SearchStats stats;
+
+    public BoundedAStarSolver(Geometry geometry, Heuristic heuristic, int maxNodes) {
+        if (!geometry.isPacked()) {
+            throw new IllegalArgumentException(geometry + " boards are too large to search with A*, use IdaStarSolver");
+        }
+        if (maxNodes < 2) {
+            throw new IllegalArgumentException("a node budget of " + maxNodes + " can't hold a move");
+        }
+        this.geometry = geometry;
+        this.heuristic = heuristic;
+        this.maxNodes = maxNodes;
+        int capacity = Math.min(maxNodes, INITIAL_CAPACITY);
+        states = new long[capacity];
+        blanks = new byte[capacity];
+        moves = new byte[capacity];
+        costs = new int[capacity];
+        heuristics = new int[capacity];
+        priorities = new int[capacity];
+        forgotten = new int[capacity];
+        children = new byte[capacity];
+        queued = new boolean[capacity];
+        free = new int[capacity];
+        scratch = new int[capacity];
+    }
+
+    /**
+     * @param geometry
+     * @param heuristic
+     * @param bytes
+     * @return a solver whose boards take at most about bytes
+     */
+    public static BoundedAStarSolver withByteBudget(Geometry geometry, Heuristic heuristic, long bytes) {
+        return new BoundedAStarSolver(geometry, heuristic, (int) Math.min(Integer.MAX_VALUE / 2, bytes / BYTES_PER_NODE));
+    }
+
+    public Solution solve(Board start) {
+        return solve(start, SearchProgress.NONE);
+    }
+
+    /**
+     * searches for a solution within the node budget
+     * @param start
+     * @param progress told every SearchProgress.INTERVAL expanded boards, and may cancel the search
+     * @return the solution, one holding the closest reachable board if the board can't be solved, or one marked
+     * budgetExhausted holding the closest board found if the budget ran out
+     * @throws CancellationException if progress cancels the search
+     */
+    public Solution solve(Board start, SearchProgress progress) {
+        stats = new SearchStats("BOUNDED_A_STAR");
+        stats.start(start);
+        if (!geometry.isSolvable(start.state, start.blank)) {
+            return Solution.unsolvable(start).record(stats);
+        }
+        index.clear();
+        open.clear();
+        leaves.clear();
+        freeCount = 0;
+        used = 0;
+        int h = heuristic.estimate(start.state);
+        stats.heuristicEvaluations++;
+        expanding = -1;
+        root = allocate(start.state, start.blank, Geometry.NO_MOVE, 0, h, h);
+        bestNode = root;
+        enqueue(root, h);
+        int lowest = h;
+        long stalled = 0;
+
+        while (true) {
+            int node = popBest();
+            if (node < 0 || priorities[node] >= maxNodes) {
+                // a solution of length f needs f + 1 boards in memory, so none fits in the budget
+                return Solution.budgetExhausted(start, boardOf(bestNode), stats.expanded).record(stats);
+            }
+            if (priorities[node] > lowest) {
+                lowest = priorities[node];
+                stalled = 0;
+            } else if (++stalled > (long) MAX_REGROWTHS * maxNodes) {
+                // only regrowing the same boards at this f
+                return Solution.budgetExhausted(start, boardOf(bestNode), stats.expanded).record(stats);
+            }
+            if (states[node] == geometry.goal) {
+                return new Solution(start, pathTo(node), stats.expanded).record(stats);
+            }
+            stats.expanded++;
+            if (stats.expanded % SearchProgress.INTERVAL == 0) {
+                if (progress.isCancelled()) {
+                    stats.finish(-1);
+                    throw new CancellationException("search cancelled after " + stats.expanded + " boards");
+                }
+                progress.update(stats.expanded, heuristics[bestNode]);
+            }
+            expanding = node;
+            if (!expand(node)) {
+                return Solution.budgetExhausted(start, boardOf(bestNode), stats.expanded).record(stats);
+            }
+            expanding = -1;
+            if (children[node] == 0 && !queued[node]) {
+                release(node);
+            }
+        }
+    }
+
+    /**
+     * adds the children of node that aren't in memory yet, forgetting the worst leaves to make room
+     * @return false if no leaf can be forgotten to make room
+     */
+    private boolean expand(int node) {
+        long state = states[node];
+        int blank = blanks[node];
+        int cost = costs[node] + 1;
+        // node's f, raised by any children it has forgotten
+        int f = priorities[node];
+        forgotten[node] = INFINITE;
+        long summary = heuristic.summarize(state);
+        int count = geometry.children(state, blank, childStates, childBlanks);
+        for (int i = 0; i < count; i++) {
+            long child = childStates[i];
+            int target = childBlanks[i];
+            stats.generated++;
+            int old = index.costOf(child);
+            if (old >= 0 && costs[old] <= cost) {
+                stats.duplicates++;
+                continue;
+            }
+            int c;
+            if (old >= 0) {
+                reparent(old, node, cost);
+                c = old;
+            } else {
+                int h = heuristics[node] + heuristic.delta(state, summary, Geometry.tileAt(state, target), target, blank);
+                stats.heuristicEvaluations++;
+                if (freeCount == 0 && used == maxNodes && !forgetWorst()) {
+                    return false;
+                }
+                c = allocate(child, target, geometry.direction(blank, target), cost, h, cost + h);
+                children[node]++;
+                if (h < heuristics[bestNode]) {
+                    bestNode = c;
+                }
+            }
+            // pathmax: a child is never more promising than its parent
+            enqueue(c, Math.max(cost + heuristics[c], f));
+        }
+        stats.frontier(open.size());
+        stats.closed(index.size());
+        return true;
+    }
+
+    /**
+     * forgets the worst queued leaf
+     * @return false if no queued board is a leaf
+     */
+    private boolean forgetWorst() {
+        int kept = 0;
+        int victim = -1;
+        int slot;
+        while (victim < 0 && (slot = leaves.popWorst()) >= 0) {
+            int node = current(leaves, slot);
+            if (node < 0 || children[node] > 0) {
+                continue;
+            }
+            if (node == root || node == expanding) {
+                scratch[kept++] = node;
+            } else {
+                victim = node;
+            }
+        }
+        for (int i = 0; i < kept; i++) {
+            push(leaves, scratch[i]);
+        }
+        if (victim < 0) {
+            return false;
+        }
+        forget(victim);
+        return true;
+    }
+
+    /**
+     * drops a leaf from memory. Its parent remembers its f and is queued to regrow it.
+     * @param node
+     */
+    private void forget(int node) {
+        int parent = parentOf(node);
+        int f = priorities[node];
+        queued[node] = false;
+        free(node);
+        childRemoved(parent);
+        if (f < forgotten[parent]) {
+            // queued again even if it already is, since it was queued for a dearer child
+            forgotten[parent] = f;
+            enqueue(parent, f);
+        } else if (children[parent] == 0 && !queued[parent]) {
+            release(parent);
+        }
+    }
+
+    /**
+     * moves a board in memory to a cheaper path through parent. The boards below it were costed along the old path, so they
+     * are dropped, and the board is left as a leaf for the caller to queue.
+     * @param node
+     * @param parent
+     * @param cost
+     */
+    private void reparent(int node, int parent, int cost) {
+        int oldParent = parentOf(node);
+        dropBelow(node);
+        moves[node] = (byte) geometry.direction(blanks[parent], blanks[node]);
+        costs[node] = cost;
+        forgotten[node] = INFINITE;
+        queued[node] = false;
+        children[parent]++;
+        childRemoved(oldParent);
+        if (children[oldParent] == 0 && !queued[oldParent]) {
+            release(oldParent);
+        }
+    }
+
+    /**
+     * frees every board below node. None of them can be the root or the board being expanded, which are both cheaper than
+     * node.
+     * @param node
+     */
+    private void dropBelow(int node) {
+        int top = 0;
+        scratch[top++] = node;
+        while (top > 0) {
+            int n = scratch[--top];
+            int count = geometry.children(states[n], blanks[n], belowStates, belowBlanks);
+            for (int i = 0; i < count && children[n] > 0; i++) {
+                int c = index.costOf(belowStates[i]);
+                if (c >= 0 && c != root && parentOf(c) == n) {
+                    children[n]--;
+                    scratch[top++] = c;
+                }
+            }
+            if (n != node) {
+                queued[n] = false;
+                free(n);
+            }
+        }
+    }
+
+    /**
+     * frees a dead end, and its parent in turn if that leaves the parent with nothing to regrow. The root and the board
+     * being expanded are never freed.
+     * @param node
+     */
+    private void release(int node) {
+        while (node != root && node != expanding && children[node] == 0 && !queued[node]) {
+            int parent = parentOf(node);
+            free(node);
+            childRemoved(parent);
+            node = parent;
+        }
+    }
+
+    /**
+     * a queued board whose last child goes becomes a leaf that can be forgotten
+     * @param parent
+     */
+    private void childRemoved(int parent) {
+        if (--children[parent] == 0 && queued[parent]) {
+            push(leaves, parent);
+        }
+    }
+
+    private int allocate(long state, int blank, int move, int cost, int h, int f) {
+        int node;
+        if (freeCount > 0) {
+            node = free[--freeCount];
+        } else {
+            if (used == states.length) {
+                grow();
+            }
+            node = used++;
+        }
+        states[node] = state;
+        blanks[node] = (byte) blank;
+        moves[node] = (byte) move;
+        costs[node] = cost;
+        heuristics[node] = h;
+        priorities[node] = f;
+        forgotten[node] = INFINITE;
+        children[node] = 0;
+        queued[node] = false;
+        index.put(state, Geometry.NO_MOVE, node);
+        return node;
+    }
+
+    private void free(int node) {
+        index.remove(states[node]);
+        if (node == bestNode) {
+            bestNode = root;
+        }
+        free[freeCount++] = node;
+    }
+
+    private int parentOf(int node) {
+        int blank = blanks[node];
+        return index.costOf(Geometry.slide(states[node], blank, geometry.target(blank, moves[node] ^ 1)));
+    }
+
+    /**
+     * queues node with priority f in open, and in leaves too if it has no children
+     */
+    private void enqueue(int node, int f) {
+        queued[node] = true;
+        priorities[node] = f;
+        push(open, node);
+        if (children[node] == 0) {
+            push(leaves, node);
+        }
+        if (open.size() > 2 * maxNodes) {
+            compact(open);
+        }
+        if (leaves.size() > 2 * maxNodes) {
+            compact(leaves);
+        }
+    }
+
+    /**
+     * queues node by its f, deepest first among equal f. The queue's heuristic field holds f, so stale entries can be told
+     * apart.
+     * @param queue
+     * @param node
+     */
+    private void push(BucketQueue queue, int node) {
+        int f = priorities[node];
+        queue.push(states[node], blanks[node], costs[node], f, f * DEPTHS + DEPTHS - 1 - Math.min(costs[node], DEPTHS - 1));
+    }
+
+    /**
+     * @param queue
+     * @param slot a slot just popped from queue
+     * @return the node it queued, or -1 if the entry is stale
+     */
+    private int current(BucketQueue queue, int slot) {
+        int node = index.costOf(queue.stateOf(slot));
+        if (node < 0 || !queued[node] || costs[node] != queue.costOf(slot) || priorities[node] != queue.heuristicOf(slot)) {
+            return -1;
+        }
+        return node;
+    }
+
+    private int popBest() {
+        int slot;
+        while ((slot = open.pop()) >= 0) {
+            int node = current(open, slot);
+            if (node >= 0) {
+                queued[node] = false;
+                return node;
+            }
+            stats.duplicates++;
+        }
+        return -1;
+    }
+
+    /**
+     * drops the stale entries of a queue, which otherwise could outgrow the budget
+     * @param queue
+     */
+    private void compact(BucketQueue queue) {
+        int n = 0;
+        int slot;
+        while ((slot = queue.pop()) >= 0) {
+            int node = current(queue, slot);
+            if (node >= 0 && (queue == open || children[node] == 0)) {
+                scratch[n++] = node;
+                queued[node] = false;
+            }
+        }
+        queue.clear();
+        for (int i = 0; i < n; i++) {
+            queued[scratch[i]] = true;
+            push(queue, scratch[i]);
+        }
+    }
+
+    /**
+     * doubles the node arrays, up to maxNodes
+     */
+    private void grow() {
+        int capacity = (int) Math.min(maxNodes, 2L * states.length);
+        states = Arrays.copyOf(states, capacity);
+        blanks = Arrays.copyOf(blanks, capacity);
+        moves = Arrays.copyOf(moves, capacity);
+        costs = Arrays.copyOf(costs, capacity);
+        heuristics = Arrays.copyOf(heuristics, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        forgotten = Arrays.copyOf(forgotten, capacity);
+        children = Arrays.copyOf(children, capacity);
+        queued = Arrays.copyOf(queued, capacity);
+        free = Arrays.copyOf(free, capacity);
+        scratch = Arrays.copyOf(scratch, capacity);
+    }
+
+    private Board boardOf(int node) {
+        return new Board(geometry, states[node], blanks[node]);
+    }
+
+    private byte[] pathTo(int node) {
+        byte[] path = new byte[costs[node]];
+        for (int i = path.length - 1; i >= 0; i--) {
+            path[i] = moves[node];
+            node = parentOf(node);
+        }
+        return path;
+    }
+}
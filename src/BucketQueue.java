@@ -0,0 +1,183 @@
+/**
+ * A priority queue of packed boards for priorities that are small non-negative integers, such as a heuristic or cost +
+ * heuristic. There is one bucket per priority, so push and pop take constant time instead of the log n of a heap.
+ *
+ * Entries live in parallel primitive arrays, and each bucket is a singly linked stack threaded through them, so the most
+ * recently pushed board of the lowest priority comes out first. popWorst takes from the other end, for searches that have to
+ * drop their least promising boards. Popped slots go on a free list and are reused by later pushes.
+ * The queue also counts its entries by cost + heuristic, so a search ordered by something else, such as a weighted
+ * heuristic, can still read the lowest cost + heuristic it holds without popping anything.
+ * Created by help
+ */
+
+import java.util.Arrays;
+
+public class BucketQueue {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_PRIORITIES = 64;
+
+    private long[] states = new long[INITIAL_CAPACITY];
+    private int[] costs = new int[INITIAL_CAPACITY];
+    private int[] heuristics = new int[INITIAL_CAPACITY];
+    private byte[] blanks = new byte[INITIAL_CAPACITY];
+    private int[] next = new int[INITIAL_CAPACITY];
+    private int[] heads = new int[INITIAL_PRIORITIES];
+    // totals[t]: how many entries have cost + heuristic t
+    private int[] totals = new int[INITIAL_PRIORITIES];
+    private int lowestTotal;
+    private int used;
+    private int free = -1;
+    private int size;
+    private int min;
+    private int max = -1;
+
+    public BucketQueue() {
+        Arrays.fill(heads, -1);
+        min = heads.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param state
+     * @param blank
+     * @param cost
+     * @param heuristic
+     * @param priority
+     */
+    public void push(long state, int blank, int cost, int heuristic, int priority) {
+        if (priority >= heads.length) {
+            int old = heads.length;
+            heads = Arrays.copyOf(heads, Math.max(old * 2, priority + 1));
+            Arrays.fill(heads, old, heads.length, -1);
+        }
+        int total = cost + heuristic;
+        if (total >= totals.length) {
+            totals = Arrays.copyOf(totals, Math.max(totals.length * 2, total + 1));
+        }
+        totals[total]++;
+        if (total < lowestTotal) {
+            lowestTotal = total;
+        }
+        int slot;
+        if (free >= 0) {
+            slot = free;
+            free = next[slot];
+        } else {
+            if (used == states.length) {
+                grow();
+            }
+            slot = used++;
+        }
+        states[slot] = state;
+        costs[slot] = cost;
+        heuristics[slot] = heuristic;
+        blanks[slot] = (byte) blank;
+        next[slot] = heads[priority];
+        heads[priority] = slot;
+        if (priority < min) {
+            min = priority;
+        }
+        if (priority > max) {
+            max = priority;
+        }
+        size++;
+    }
+
+    /**
+     * removes the most recently pushed entry of the lowest priority. Its slot is only valid until the next push,
+     * so read it with stateOf, blankOf, costOf and heuristicOf straight away.
+     * @return the popped slot, or -1 if the queue is empty
+     */
+    public int pop() {
+        if (size == 0) {
+            return -1;
+        }
+        while (heads[min] < 0) {
+            min++;
+        }
+        return unlink(min);
+    }
+
+    /**
+     * removes the most recently pushed entry of the highest priority, with the same caveat about its slot as pop
+     * @return the removed slot, or -1 if the queue is empty
+     */
+    public int popWorst() {
+        if (size == 0) {
+            return -1;
+        }
+        while (heads[max] < 0) {
+            max--;
+        }
+        return unlink(max);
+    }
+
+    /**
+     * @return the lowest cost + heuristic of the entries in the queue, or Integer.MAX_VALUE if it is empty
+     */
+    public int lowestTotal() {
+        if (size == 0) {
+            return Integer.MAX_VALUE;
+        }
+        while (totals[lowestTotal] == 0) {
+            lowestTotal++;
+        }
+        return lowestTotal;
+    }
+
+    private int unlink(int priority) {
+        int slot = heads[priority];
+        totals[costs[slot] + heuristics[slot]]--;
+        heads[priority] = next[slot];
+        next[slot] = free;
+        free = slot;
+        size--;
+        return slot;
+    }
+
+    public long stateOf(int slot) {
+        return states[slot];
+    }
+
+    public int blankOf(int slot) {
+        return blanks[slot];
+    }
+
+    public int costOf(int slot) {
+        return costs[slot];
+    }
+
+    public int heuristicOf(int slot) {
+        return heuristics[slot];
+    }
+
+    /**
+     * empties the queue, keeping its current capacity
+     */
+    public void clear() {
+        Arrays.fill(heads, -1);
+        Arrays.fill(totals, 0);
+        lowestTotal = 0;
+        min = heads.length;
+        max = -1;
+        used = 0;
+        free = -1;
+        size = 0;
+    }
+
+    private void grow() {
+        int capacity = states.length * 2;
+        states = Arrays.copyOf(states, capacity);
+        costs = Arrays.copyOf(costs, capacity);
+        heuristics = Arrays.copyOf(heuristics, capacity);
+        blanks = Arrays.copyOf(blanks, capacity);
+        next = Arrays.copyOf(next, capacity);
+    }
+}
@@ -1,16 +1,31 @@
 /**
  * Used to store Constants used throughout the program
+ * The default board shape is 3x3 and can be changed at startup with -Deighttiles.rows and -Deighttiles.cols
+ * Solves use the heuristic named by -Deighttiles.heuristic (see HeuristicType), linear conflicts by default. Pattern
+ * databases are opt-in, with -Deighttiles.heuristic=PATTERN_DATABASE, since the first solve of a shape starts building one
+ * Diagnostics such as tables that can't be read or written go to errorStream, so they never mix with solver output
+ * Memory-bounded solves hold at most -Deighttiles.nodeBudget boards, 1048576 by default
+ * Anytime solves stop after -Deighttiles.deadline milliseconds, 100 by default
+ * Precomputed tables such as pattern databases are kept in dataDirectory, ~/.eighttiles unless -Deighttiles.data is set
  * Created by help
  */
 
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public class Constants {
-    public static final int dimX = 3;
-    public static final int dimY = 3;
-    public static final int gridSize = dimX * dimY;
+    public static final int defaultRows = Integer.getInteger("eighttiles.rows", 3);
+    public static final int defaultCols = Integer.getInteger("eighttiles.cols", defaultRows);
     public static final InputStream inputStream = System.in;
     public static final PrintStream outputStream = System.out;
+    public static final PrintStream errorStream = System.err;
+    public static final HeuristicType defaultHeuristic = HeuristicType.valueOf(
+            System.getProperty("eighttiles.heuristic", HeuristicType.LINEAR_CONFLICT.name()));
+    public static final int nodeBudget = Integer.getInteger("eighttiles.nodeBudget", 1 << 20);
+    public static final long anytimeDeadlineMillis = Long.getLong("eighttiles.deadline", 100);
+    public static final Path dataDirectory = Paths.get(System.getProperty("eighttiles.data",
+            Paths.get(System.getProperty("user.home"), ".eighttiles").toString()));
 
 }
@@ -2,6 +2,8 @@
  * This is the Controller class for the 8-Tiles game. It extends Initializable so that we may initialize our board upon startup.
  * Our GUI contains a Solve button, Set Grid button, Start New Game button, Exit button, and of course the Grid buttons.
  * In our functions, we call the back-end (the Board class & the SearchTree class) functions and update the interface as needed.
+ * Solving runs as a Task on a background thread so the window stays responsive. While it runs the Solve button turns into
+ * a Cancel button and the stats label shows how many boards have been expanded; editing the board also cancels it.
  *
  * The @FXML Tags are used to inject information from the .fxml file into our Controller.
  */
@@ -9,6 +11,7 @@
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.fxml.FXML;
@@ -19,18 +22,28 @@ import javafx.util.Duration;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 
 public class Controller implements Initializable {
+    static final Geometry GEOMETRY = Geometry.of(3, 3); // EightTiles.fxml lays out a 3x3 grid of buttons
     int buttonsSet = 0;
     int numMoves = 0;
     boolean manualSet = false;
     Board board;
+    private final ExecutorService solveExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "solver");
+        t.setDaemon(true);
+        return t;
+    });
+    private SolveTask solveTask;
+    private Timeline animation;
 
     @FXML
     Button solve, setGrid, exitButton, startNewGameButton;
     @FXML
-    Label numMovesLabel;
+    Label numMovesLabel, statsLabel;
     @FXML
     ArrayList<Button> buttons;
 
@@ -52,11 +65,13 @@ public class Controller implements Initializable {
      * Sets up the board to play a new game
      */
     public void resetGridForNewGame() {
-        board = new Board(1);
+        cancelSolve();
+        board = new Board(1, GEOMETRY);
         buttonsSet = 0;
         numMoves = 0;
         displayCurrentNumberOfMoves();
-        board = new Board(1);
+        statsLabel.setText("");
+        board = new Board(1, GEOMETRY);
         prepareAllGridButtons();
     }
 
@@ -71,9 +86,9 @@ public class Controller implements Initializable {
      * Calls configureGridButton on all buttons in our buttons ArrayList
      */
     public void prepareAllGridButtons() {
-        for (int i = 0; i < board.grid.length; i++) {
-            for (int j = 0; j < board.grid[0].length; j++) {
-                int buttonVal = board.grid[i][j];
+        for (int i = 0; i < board.geometry.rows; i++) {
+            for (int j = 0; j < board.geometry.cols; j++) {
+                int buttonVal = board.tileAt(i, j);
                 Button button = buttons.get(buttonsSet++);
                 configureGridButton(button, buttonVal);
             }
@@ -148,9 +163,9 @@ public class Controller implements Initializable {
      */
     public void remapButtons(Board aBoard) {
         int buttonsChecked = 0;
-        for (int i = 0; i < aBoard.grid.length; i++) {
-            for (int j = 0; j < aBoard.grid[0].length; j++) {
-                int buttonVal = aBoard.grid[i][j];
+        for (int i = 0; i < aBoard.geometry.rows; i++) {
+            for (int j = 0; j < aBoard.geometry.cols; j++) {
+                int buttonVal = aBoard.tileAt(i, j);
                 Button button = buttons.get(buttonsChecked++);
                 button.setText(Integer.toString(buttonVal));
                 setButtonVisibility(button,buttonVal);
@@ -162,16 +177,11 @@ public class Controller implements Initializable {
      * Updates the values of the global board to the values of the buttons
      */
     public void remapBoardValues() {
-        int buttonCounter = 0;
-        board.mapFromIntegerToCoord.clear();
-        for (int i = 0; i < board.grid.length; i++) {
-            for (int j = 0; j < board.grid[0].length; j++) {
-                Button b = buttons.get(buttonCounter++);
-                int num = Integer.parseInt(b.getText());
-                board.grid[i][j] = num;
-                board.mapFromIntegerToCoord.put(num, new Coordinate(i, j));
-            }
+        int[] tiles = new int[board.geometry.size];
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = Integer.parseInt(buttons.get(i).getText());
         }
+        board.setTiles(tiles);
 
     }
 
@@ -181,7 +191,7 @@ public class Controller implements Initializable {
     private void unsolvablePrompt() {
         Dialog dialog = new Dialog();
         dialog.setTitle("Woops!");
-        dialog.setContentText("Looks like that board was unsolvable, displaying the best found solution.");
+        dialog.setContentText("Looks like that board was unsolvable, displaying the closest board it can reach.");
         dialog.getDialogPane().getButtonTypes().add(new ButtonType("Okay", ButtonBar.ButtonData.OK_DONE));
         try {
             dialog.showAndWait();
@@ -194,7 +204,7 @@ public class Controller implements Initializable {
      * @param searchTree
      */
     private void playSolveAnimation(SearchTree searchTree) {
-        Timeline timeline = new Timeline(new KeyFrame(Duration.millis(300), new EventHandler<ActionEvent>() {
+        animation = new Timeline(new KeyFrame(Duration.millis(300), new EventHandler<ActionEvent>() {
             @Override
             public void handle(ActionEvent event) {
                 updateButtons(searchTree.getNextBoard());
@@ -202,8 +212,8 @@ public class Controller implements Initializable {
                 updateNumberOfMovesAndDisplay();
             }
         }));
-        timeline.setCycleCount(searchTree.path.size());
-        timeline.playFromStart();
+        animation.setCycleCount(searchTree.solution.length());
+        animation.playFromStart();
     }
 
     /**
@@ -214,32 +224,106 @@ public class Controller implements Initializable {
     }
 
     /**
-     * Adds the button handler to the solve button that will call autoSolve() on the global board and
-     * if the board is unsolvable (a heuristic greater than 0) will let the user know and display the best found board
-     * otherwise, displays the animation to a step-by-step solution to the solved board from the current board configuration
+     * Adds the button handler to the solve button, which starts solving the global board in A_STAR mode on a background thread,
+     * so the animation plays the shortest solution, or cancels the solve if one is already running
      */
     public void prepareSolveButton() {
-        solve.setOnAction(new EventHandler<ActionEvent>() {
-            @Override
-            public void handle(ActionEvent event) {
-                SearchTree searchTree = board.autoSolve();
-                searchTree.createPath();
-                if (searchTree.bestBoardHeuristic > 0) {
-                    unsolvablePrompt();
-                    updateButtons(searchTree.bestBoardFound);
-                    remapBoardValues();
-                } else {
-                    playSolveAnimation(searchTree);
-                }
+        solve.setOnAction(event -> {
+            if (solveTask != null) {
+                cancelSolve();
+            } else {
+                startSolve();
             }
         });
         solve.setStyle("-fx-font: 15 system; -fx-base: #b6e7c9;");
     }
 
+    /**
+     * solves a copy of the global board on the solver thread, streaming progress to the stats label.
+     * if the board is unsolvable (a heuristic greater than 0) will let the user know and display the closest reachable board
+     * otherwise, plays the animation to a step-by-step solution as soon as the path is built
+     */
+    private void startSolve() {
+        stopAnimation();
+        SolveTask task = new SolveTask(new Board(board));
+        task.messageProperty().addListener((observable, oldMessage, message) -> statsLabel.setText(message));
+        task.setOnSucceeded(event -> {
+            solveFinished(task);
+            SearchTree searchTree = task.getValue();
+            statsLabel.setText(searchTree.stats.summary());
+            if (searchTree.bestBoardHeuristic > 0) {
+                unsolvablePrompt();
+                updateButtons(searchTree.bestBoardFound);
+                remapBoardValues();
+            } else {
+                playSolveAnimation(searchTree);
+            }
+        });
+        task.setOnCancelled(event -> {
+            solveFinished(task);
+            statsLabel.setText("Solve cancelled");
+        });
+        task.setOnFailed(event -> {
+            solveFinished(task);
+            statsLabel.setText("Solve failed: " + task.getException().getMessage());
+        });
+        solveTask = task;
+        solve.setText("Cancel");
+        solveExecutor.execute(task);
+    }
+
+    /**
+     * cancels the running solve, if any, and stops a running animation
+     */
+    public void cancelSolve() {
+        stopAnimation();
+        if (solveTask != null) {
+            solveTask.cancel();
+        }
+    }
+
+    private void solveFinished(SolveTask task) {
+        if (solveTask == task) {
+            solveTask = null;
+            solve.setText("Solve");
+        }
+    }
+
+    private void stopAnimation() {
+        if (animation != null) {
+            animation.stop();
+            animation = null;
+        }
+    }
+
+    /**
+     * runs autoSolve and createPath off the JavaFX application thread, reporting progress as its message
+     */
+    private static class SolveTask extends Task<SearchTree> implements SearchProgress {
+        private final Board start;
+
+        SolveTask(Board start) {
+            this.start = start;
+        }
+
+        @Override
+        protected SearchTree call() {
+            SearchTree searchTree = start.autoSolve(SearchMode.A_STAR, this);
+            searchTree.createPath();
+            return searchTree;
+        }
+
+        @Override
+        public void update(long expanded, int bestHeuristic) {
+            updateMessage(String.format("Expanded %,d boards, best heuristic %d", expanded, bestHeuristic));
+        }
+    }
+
     /**
      * Removes all values from grid buttons
      */
     public void displayBlankGrid() {
+        cancelSolve();
         buttonsSet = 0;
         numMoves = 0;
         displayCurrentNumberOfMoves();
@@ -259,9 +343,10 @@ public class Controller implements Initializable {
      */
     public void gridButtonHandler(ActionEvent event) {
         Button b = (Button) event.getSource();
-        if (!manualSet && buttonsSet == 9) {
+        if (!manualSet && buttonsSet == GEOMETRY.size) {
             int move = Integer.parseInt(b.getText());
             if (board.isValidMove(move)) {
+                cancelSolve();
                 board.makeMove(move);
                 updateNumberOfMovesAndDisplay();
                 updateButtons(board);
@@ -270,7 +355,7 @@ public class Controller implements Initializable {
             if (buttonsSet == 0)
                 b.setVisible(false);
             b.setText(Integer.toString(buttonsSet++));
-            if (buttonsSet == 9) {
+            if (buttonsSet == GEOMETRY.size) {
                 manualSet = false;
                 remapBoardValues();
             }
@@ -0,0 +1,253 @@
+/**
+ * The exact number of moves to the goal for every solvable board of a small shape, such as the 181,440 of the 3x3 puzzle.
+ * With it a solve needs no search at all: from any board, some move always leads to a board one move closer, so following
+ * those moves walks an optimal path to the goal in as many steps as it has moves.
+ *
+ * Boards are indexed by the blank's cell and the Lehmer code of the other tiles in reading order, halved. With the blank
+ * fixed, swapping the last two tiles only changes the last bit of the code and always flips solvability, so the solvable
+ * boards fill the halved range exactly.
+ * Each entry is a 4-bit distance mod 16, two to a byte: neighbours always differ by one move, so the distance mod 16 is enough
+ * to tell which neighbour is closer, and the 3x3 table fits in 90 KB.
+ *
+ * Like pattern databases the table is built by a breadth-first search from the goal, written to Constants.dataDirectory and
+ * memory-mapped read-only. It only takes a moment, so the first solve that needs it builds it directly.
+ * Created by help
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class DistanceOracle {
+    public static final int MAX_SIZE = 9;
+    private static final int MAGIC = 0x444F5231; // "DOR1"
+    private static final int HEADER_SIZE = 3 * 4;
+    private static final int UNSEEN = -1;
+
+    private static final ConcurrentHashMap<Geometry, DistanceOracle> loaded = new ConcurrentHashMap<>();
+
+    final Geometry geometry;
+    private final MappedByteBuffer table;
+
+    private DistanceOracle(Geometry geometry, MappedByteBuffer table) {
+        this.geometry = geometry;
+        this.table = table;
+    }
+
+    /**
+     * returns the oracle for a geometry, building and writing it first if it isn't on disk yet
+     * @param geometry
+     * @return the oracle, or null if the shape is too large for one or its file can't be read or written
+     */
+    public static DistanceOracle forGeometry(Geometry geometry) {
+        if (geometry.size > MAX_SIZE) {
+            return null;
+        }
+        DistanceOracle oracle = loaded.get(geometry);
+        if (oracle != null) {
+            return oracle;
+        }
+        Path path = defaultPath(geometry);
+        try {
+            return loaded.computeIfAbsent(geometry, g -> {
+                try {
+                    return Files.exists(path) ? open(path) : build(geometry, path);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+            });
+        } catch (IllegalStateException e) {
+            Constants.errorStream.println("Could not use distance oracle " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    static Path defaultPath(Geometry geometry) {
+        return Constants.dataDirectory.resolve("oracle-" + geometry + ".bin");
+    }
+
+    /**
+     * memory-maps an oracle file written by build
+     * @param path
+     * @return
+     */
+    public static DistanceOracle open(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalStateException("not a distance oracle");
+            }
+            Geometry geometry = Geometry.of(buffer.getInt(), buffer.getInt());
+            if (geometry.size > MAX_SIZE || channel.size() != HEADER_SIZE + (entries(geometry.size) + 1) / 2) {
+                throw new IllegalStateException("truncated distance oracle");
+            }
+            return new DistanceOracle(geometry, buffer);
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * runs the breadth-first search and writes the table to path, through a temporary file so readers never see half a file
+     * @param geometry
+     * @param path
+     * @return the oracle, mapped from the new file
+     * @throws IOException
+     */
+    public static DistanceOracle build(Geometry geometry, Path path) throws IOException {
+        if (geometry.size > MAX_SIZE) {
+            throw new IllegalArgumentException(geometry + " boards are too large for a distance oracle");
+        }
+        byte[] distances = buildTable(geometry);
+        byte[] packed = new byte[(distances.length + 1) / 2];
+        for (int i = 0; i < distances.length; i++) {
+            packed[i >>> 1] |= (distances[i] & 0xF) << ((i & 1) * 4);
+        }
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path tmp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(geometry.rows).putInt(geometry.cols);
+            header.flip();
+            channel.write(header);
+            channel.write(ByteBuffer.wrap(packed));
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(path);
+    }
+
+    /**
+     * breadth-first search from the goal over every solvable board
+     * @param geometry
+     * @return the full distance of every board, by index
+     */
+    static byte[] buildTable(Geometry geometry) {
+        byte[] distances = new byte[entries(geometry.size)];
+        Arrays.fill(distances, (byte) UNSEEN);
+        long[] queue = new long[distances.length];
+        int head = 0;
+        int tail = 0;
+        long[] childStates = new long[4];
+        int[] childBlanks = new int[4];
+        distances[index(geometry.goal, geometry.size)] = 0;
+        queue[tail++] = geometry.goal;
+        while (head < tail) {
+            long state = queue[head++];
+            int distance = distances[index(state, geometry.size)];
+            int count = geometry.children(state, geometry.findBlank(state), childStates, childBlanks);
+            for (int i = 0; i < count; i++) {
+                int child = index(childStates[i], geometry.size);
+                if (distances[child] == UNSEEN) {
+                    distances[child] = (byte) (distance + 1);
+                    queue[tail++] = childStates[i];
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * @param size
+     * @return the number of solvable boards with size cells
+     */
+    static int entries(int size) {
+        int n = 1;
+        for (int i = 2; i <= size; i++) {
+            n *= i;
+        }
+        return n / 2;
+    }
+
+    /**
+     * returns blank * (size - 1)! / 2 plus the Lehmer code of the tiles other than the blank, halved
+     * @param state
+     * @param size
+     * @return
+     */
+    static int index(long state, int size) {
+        int used = 0;
+        int rank = 0;
+        int blank = 0;
+        int i = 0;
+        for (int k = 0; k < size; k++) {
+            int tile = Geometry.tileAt(state, k);
+            if (tile == 0) {
+                blank = k;
+                continue;
+            }
+            rank = rank * (size - 1 - i++) + tile - 1 - Integer.bitCount(used & ((1 << tile) - 1));
+            used |= 1 << tile;
+        }
+        return blank * (entries(size) / size) + (rank >>> 1);
+    }
+
+    /**
+     * @param state a solvable packed state
+     * @return the number of moves to the goal, mod 16
+     */
+    int distanceMod16(long state) {
+        int i = index(state, geometry.size);
+        return (table.get(HEADER_SIZE + (i >>> 1)) >>> ((i & 1) * 4)) & 0xF;
+    }
+
+    /**
+     * walks an optimal path to the goal, always taking the move that leads one move closer
+     * @param start
+     * @return the solution, or one holding the closest reachable board if the board can't be solved
+     */
+    public Solution solve(Board start) {
+        SearchStats stats = new SearchStats("ORACLE");
+        stats.start(start);
+        if (!geometry.isSolvable(start.state, start.blank)) {
+            return Solution.unsolvable(start).record(stats);
+        }
+        long state = start.state;
+        int blank = start.blank;
+        byte[] moves = new byte[64];
+        int length = 0;
+        int distance = distanceMod16(state);
+        while (state != geometry.goal) {
+            int closer = (distance - 1) & 0xF;
+            for (int dir = 0; dir < 4; dir++) {
+                int target = geometry.target(blank, dir);
+                if (target < 0) {
+                    continue;
+                }
+                stats.generated++;
+                stats.heuristicEvaluations++;
+                if (distanceMod16(Geometry.slide(state, blank, target)) == closer) {
+                    state = Geometry.slide(state, blank, target);
+                    blank = target;
+                    if (length == moves.length) {
+                        moves = Arrays.copyOf(moves, length * 2);
+                    }
+                    moves[length++] = (byte) dir;
+                    break;
+                }
+            }
+            distance = closer;
+        }
+        stats.expanded = length;
+        return new Solution(start, Arrays.copyOf(moves, length), length).record(stats);
+    }
+
+    /**
+     * Builds the oracle for a board shape ahead of time: java DistanceOracle rows cols
+     * @param args
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        Geometry geometry = args.length >= 2 ? Geometry.of(Integer.parseInt(args[0]), Integer.parseInt(args[1])) : Geometry.DEFAULT;
+        Path path = defaultPath(geometry);
+        long start = System.currentTimeMillis();
+        build(geometry, path);
+        Constants.errorStream.println("Wrote " + path + " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
@@ -0,0 +1,386 @@
+/**
+ * Breadth-first search over spaces too large to hold in memory, with delayed duplicate detection:
+ * java ExternalBfs rows cols [directory]
+ *
+ * Every layer of the search is a file of packed states in ascending order. To make layer d + 1, layer d is streamed and its
+ * children are collected in a buffer of runSize states, which is sorted, cleared of repeats and written out as a run file
+ * whenever it fills. The runs are then merged, and every child that is also in layer d or layer d - 1 is dropped while
+ * merging. A move can be undone, so a child of layer d is never further back than d - 1, and those two layers are all a
+ * merge has to read. Memory stays at the run buffer plus one small I/O buffer per open file, however large the space.
+ * Runs are merged at most MAX_FAN_IN at a time, in several passes if there are more.
+ *
+ * A layer only gets its name once it is complete and flushed to disk, so a search that is stopped can be started again on
+ * the same directory and carries on from the last complete layer. The count of every layer is printed as it is finished,
+ * and layers can be read back with forEach to build tables from them. Any packed start state works, including pattern
+ * database abstractions in which several tiles share one value.
+ * Created by help
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+public class ExternalBfs {
+    public static final int DEFAULT_RUN_SIZE = Integer.getInteger("eighttiles.bfsRunSize", 1 << 22);
+    static final int MAX_FAN_IN = 64;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    final Geometry geometry;
+    final Path directory;
+    private final int runSize;
+
+    public ExternalBfs(Geometry geometry, Path directory, int runSize) {
+        if (!geometry.isPacked()) {
+            throw new IllegalArgumentException(geometry + " boards are too large to pack");
+        }
+        this.geometry = geometry;
+        this.directory = directory;
+        this.runSize = runSize;
+    }
+
+    /**
+     * searches from start until a layer comes out empty, resuming from the layers already in the directory
+     * @param start
+     * @return the number of states in each layer, without the final empty one
+     * @throws IOException
+     * @throws IllegalStateException if the directory holds a search of another shape or from another start
+     */
+    public long[] run(long start) throws IOException {
+        Files.createDirectories(directory);
+        claim(start);
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, "*.{run,tmp}")) {
+            for (Path path : leftovers) {
+                Files.delete(path);
+            }
+        }
+        if (!Files.exists(layer(0))) {
+            try (LongWriter out = new LongWriter(directory.resolve("layer-0.tmp"))) {
+                out.write(start);
+            }
+            Files.move(directory.resolve("layer-0.tmp"), layer(0), StandardCopyOption.ATOMIC_MOVE);
+        }
+        long[] counts = new long[64];
+        int depth = 0;
+        long total = 0;
+        long[] buffer = null;
+        while (true) {
+            if (!Files.exists(layer(depth + 1))) {
+                if (count(depth) == 0) {
+                    break;
+                }
+                if (buffer == null) {
+                    buffer = new long[runSize];
+                }
+                long began = System.nanoTime();
+                expand(depth, buffer);
+                Constants.outputStream.println(String.format("Layer %d: %d boards in %d ms", depth + 1, count(depth + 1),
+                        (System.nanoTime() - began) / 1_000_000));
+            }
+            counts[depth] = count(depth);
+            total += counts[depth];
+            if (++depth == counts.length) {
+                counts = Arrays.copyOf(counts, depth * 2);
+            }
+        }
+        Constants.outputStream.println(depth + " layers, " + total + " boards in all");
+        return Arrays.copyOf(counts, depth);
+    }
+
+    /**
+     * @param depth
+     * @return the number of states in a finished layer
+     * @throws IOException
+     */
+    public long count(int depth) throws IOException {
+        return Files.size(layer(depth)) / Long.BYTES;
+    }
+
+    /**
+     * streams the states of a finished layer in ascending order
+     * @param depth
+     * @param consumer
+     * @throws IOException
+     */
+    public void forEach(int depth, LongConsumer consumer) throws IOException {
+        try (LongReader in = new LongReader(layer(depth))) {
+            while (in.hasNext()) {
+                consumer.accept(in.next());
+            }
+        }
+    }
+
+    Path layer(int depth) {
+        return directory.resolve("layer-" + depth + ".bin");
+    }
+
+    /**
+     * records the shape and start of the search in the directory, or checks them against the ones already recorded
+     * @param start
+     * @throws IOException
+     */
+    private void claim(long start) throws IOException {
+        Path meta = directory.resolve("bfs.meta");
+        String expected = geometry + " " + Long.toHexString(start);
+        if (!Files.exists(meta)) {
+            Files.write(meta, expected.getBytes(StandardCharsets.UTF_8));
+        } else if (!new String(Files.readAllBytes(meta), StandardCharsets.UTF_8).trim().equals(expected)) {
+            throw new IllegalStateException(directory + " holds a different search than " + expected);
+        }
+    }
+
+    /**
+     * writes layer depth + 1 from the children of layer depth
+     * @param depth
+     * @param buffer
+     * @throws IOException
+     */
+    private void expand(int depth, long[] buffer) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        long[] childStates = new long[4];
+        int[] childBlanks = new int[4];
+        int n = 0;
+        try (LongReader in = new LongReader(layer(depth))) {
+            while (in.hasNext()) {
+                long state = in.next();
+                int count = geometry.children(state, geometry.findBlank(state), childStates, childBlanks);
+                for (int i = 0; i < count; i++) {
+                    if (n == buffer.length) {
+                        runs.add(writeRun(buffer, n, runs.size()));
+                        n = 0;
+                    }
+                    buffer[n++] = childStates[i];
+                }
+            }
+        }
+        if (n > 0 || runs.isEmpty()) {
+            runs.add(writeRun(buffer, n, runs.size()));
+        }
+        int pass = runs.size();
+        while (runs.size() > MAX_FAN_IN) {
+            List<Path> merged = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i += MAX_FAN_IN) {
+                Path out = directory.resolve("merge-" + pass++ + ".run");
+                merge(runs.subList(i, Math.min(i + MAX_FAN_IN, runs.size())), new Path[0], out);
+                merged.add(out);
+            }
+            runs = merged;
+        }
+        Path tmp = directory.resolve("layer-" + (depth + 1) + ".tmp");
+        merge(runs, depth > 0 ? new Path[] {layer(depth), layer(depth - 1)} : new Path[] {layer(depth)}, tmp);
+        Files.move(tmp, layer(depth + 1), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * sorts the first n states of buffer and writes them out without repeats
+     * @return the run file
+     */
+    private Path writeRun(long[] buffer, int n, int index) throws IOException {
+        Arrays.sort(buffer, 0, n);
+        Path path = directory.resolve("run-" + index + ".run");
+        try (LongWriter out = new LongWriter(path)) {
+            for (int i = 0; i < n; i++) {
+                if (i == 0 || buffer[i] != buffer[i - 1]) {
+                    out.write(buffer[i]);
+                }
+            }
+        }
+        return path;
+    }
+
+    /**
+     * merges sorted runs into one sorted file without repeats, leaving out every state in the sorted files of subtract,
+     * and deletes the runs
+     * @param runs
+     * @param subtract
+     * @param out
+     * @throws IOException
+     */
+    private static void merge(List<Path> runs, Path[] subtract, Path out) throws IOException {
+        LongReader[] readers = new LongReader[runs.size()];
+        LongReader[] skip = new LongReader[subtract.length];
+        long[] heads = new long[readers.length];
+        int[] heap = new int[readers.length];
+        int size = 0;
+        try (LongWriter writer = new LongWriter(out)) {
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = new LongReader(runs.get(i));
+                if (readers[i].hasNext()) {
+                    heads[i] = readers[i].next();
+                    heap[size] = i;
+                    siftUp(heap, heads, size++);
+                }
+            }
+            for (int i = 0; i < skip.length; i++) {
+                skip[i] = new LongReader(subtract[i]);
+            }
+            long[] skipHeads = new long[skip.length];
+            Arrays.fill(skipHeads, Long.MIN_VALUE);
+            boolean first = true;
+            long last = 0;
+            while (size > 0) {
+                int top = heap[0];
+                long state = heads[top];
+                if (readers[top].hasNext()) {
+                    heads[top] = readers[top].next();
+                } else {
+                    heap[0] = heap[--size];
+                }
+                siftDown(heap, heads, size);
+                if (!first && state == last) {
+                    continue;
+                }
+                first = false;
+                last = state;
+                boolean seen = false;
+                for (int i = 0; i < skip.length; i++) {
+                    while (skipHeads[i] < state && skip[i].hasNext()) {
+                        skipHeads[i] = skip[i].next();
+                    }
+                    seen |= skipHeads[i] == state;
+                }
+                if (!seen) {
+                    writer.write(state);
+                }
+            }
+        } finally {
+            for (LongReader reader : readers) {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+            for (LongReader reader : skip) {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        }
+        for (Path run : runs) {
+            Files.delete(run);
+        }
+    }
+
+    private static void siftUp(int[] heap, long[] heads, int i) {
+        while (i > 0 && heads[heap[(i - 1) / 2]] > heads[heap[i]]) {
+            int parent = (i - 1) / 2;
+            int t = heap[i];
+            heap[i] = heap[parent];
+            heap[parent] = t;
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, long[] heads, int size) {
+        int i = 0;
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            if (left < size && heads[heap[left]] < heads[heap[smallest]]) {
+                smallest = left;
+            }
+            if (left + 1 < size && heads[heap[left + 1]] < heads[heap[smallest]]) {
+                smallest = left + 1;
+            }
+            if (smallest == i) {
+                return;
+            }
+            int t = heap[i];
+            heap[i] = heap[smallest];
+            heap[smallest] = t;
+            i = smallest;
+        }
+    }
+
+    /**
+     * reads a file of longs through a direct buffer
+     */
+    private static final class LongReader implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+        LongReader(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            buffer.flip();
+        }
+
+        boolean hasNext() throws IOException {
+            if (buffer.remaining() >= Long.BYTES) {
+                return true;
+            }
+            buffer.compact();
+            while (buffer.position() < Long.BYTES && channel.read(buffer) >= 0) {
+                // keep reading until a whole long is in
+            }
+            buffer.flip();
+            return buffer.remaining() >= Long.BYTES;
+        }
+
+        long next() {
+            return buffer.getLong();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * writes a file of longs through a direct buffer, and forces it to disk on close so a renamed file is complete
+     */
+    private static final class LongWriter implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+        LongWriter(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+        }
+
+        void write(long value) throws IOException {
+            if (buffer.remaining() < Long.BYTES) {
+                flush();
+            }
+            buffer.putLong(value);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                channel.force(false);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            Constants.outputStream.println("usage: java ExternalBfs rows cols [directory]");
+            return;
+        }
+        Geometry geometry = Geometry.of(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+        Path directory = args.length > 2 ? Paths.get(args[2]) : Constants.dataDirectory.resolve("bfs-" + geometry);
+        new ExternalBfs(geometry, directory, DEFAULT_RUN_SIZE).run(geometry.goal);
+    }
+}
@@ -0,0 +1,265 @@
+/**
+ * Describes the shape of a board and operates on boards packed into a single long.
+ * Every cell takes 4 bits, cell k (row-major, k = row * cols + col) lives at bits 4k..4k+3, so boards of up to 16 cells fit.
+ * The position of the blank is tracked alongside the packed tiles by the caller, which lets every operation here run without
+ * scanning the board or allocating.
+ *
+ * Each shape is built once by of(rows, cols) with its own move and distance tables. Shapes with more than 16 cells, such as
+ * 5x5, can't be packed (isPacked() is false); their boards keep a plain tile array and only IdaStarSolver can search them.
+ *
+ * Moves are described by the direction the blank travels in, so a move fits in 2 bits and its inverse is (dir ^ 1).
+ * Created by help
+ */
+
+import java.util.concurrent.ConcurrentHashMap;
+
+public class Geometry {
+    public static final int UP = 0;
+    public static final int DOWN = 1;
+    public static final int LEFT = 2;
+    public static final int RIGHT = 3;
+    public static final int NO_MOVE = -1;
+
+    public static final int MAX_PACKED_SIZE = 16;
+    private static final ConcurrentHashMap<Integer, Geometry> shapes = new ConcurrentHashMap<>();
+
+    static final Geometry DEFAULT = of(Constants.defaultRows, Constants.defaultCols);
+
+    final int rows;
+    final int cols;
+    final int size;
+    final long goal;
+    final int goalBlank;
+    private final int[] targets;
+    private final int[] distances;
+
+    /**
+     * returns the geometry for a board of the given shape, building its tables the first time it is asked for
+     * @param rows
+     * @param cols
+     * @return
+     */
+    public static Geometry of(int rows, int cols) {
+        if (rows < 2 || cols < 2 || rows > 255 || cols > 255) {
+            throw new IllegalArgumentException("Unsupported board size " + rows + "x" + cols);
+        }
+        return shapes.computeIfAbsent(rows << 8 | cols, key -> new Geometry(rows, cols));
+    }
+
+    private Geometry(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        size = rows * cols;
+        goalBlank = size - 1;
+
+        long g = 0;
+        for (int k = 0; k < size - 1 && isPacked(); k++) {
+            g |= (long) (k + 1) << (4 * k);
+        }
+        goal = g;
+
+        targets = new int[size * 4];
+        for (int k = 0; k < size; k++) {
+            int row = k / cols;
+            int col = k % cols;
+            targets[k * 4 + UP] = row > 0 ? k - cols : -1;
+            targets[k * 4 + DOWN] = row < rows - 1 ? k + cols : -1;
+            targets[k * 4 + LEFT] = col > 0 ? k - 1 : -1;
+            targets[k * 4 + RIGHT] = col < cols - 1 ? k + 1 : -1;
+        }
+
+        distances = new int[size * size];
+        for (int tile = 0; tile < size; tile++) {
+            int home = tile == 0 ? goalBlank : tile - 1;
+            for (int k = 0; k < size; k++) {
+                distances[tile * size + k] = Math.abs(home / cols - k / cols) + Math.abs(home % cols - k % cols);
+            }
+        }
+    }
+
+    /**
+     * @return whether boards of this shape fit in a packed long
+     */
+    public boolean isPacked() {
+        return size <= MAX_PACKED_SIZE;
+    }
+
+    @Override
+    public String toString() {
+        return rows + "x" + cols;
+    }
+
+    /**
+     * packs a row-major array of tiles into a long
+     * @param tiles
+     * @return
+     */
+    public long pack(int[] tiles) {
+        long state = 0;
+        for (int k = 0; k < size; k++) {
+            state |= (long) tiles[k] << (4 * k);
+        }
+        return state;
+    }
+
+    /**
+     * unpacks a state into a row-major array of tiles
+     * @param state
+     * @param tiles
+     */
+    public void unpack(long state, int[] tiles) {
+        for (int k = 0; k < size; k++) {
+            tiles[k] = tileAt(state, k);
+        }
+    }
+
+    /**
+     * returns the tile sitting in cell k of a packed state
+     * @param state
+     * @param k
+     * @return
+     */
+    public static int tileAt(long state, int k) {
+        return (int) (state >>> (4 * k)) & 0xF;
+    }
+
+    /**
+     * finds the cell holding the blank by scanning the packed state. Only needed when a state is first built.
+     * @param state
+     * @return
+     */
+    public int findBlank(long state) {
+        for (int k = 0; k < size; k++) {
+            if (tileAt(state, k) == 0) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * returns the cell the blank lands on when it moves in direction dir, or -1 if that would leave the board
+     * @param blank
+     * @param dir
+     * @return
+     */
+    public int target(int blank, int dir) {
+        return targets[blank * 4 + dir];
+    }
+
+    /**
+     * slides the tile in cell target into the blank cell. The blank is 0 in the packed state, so the tile only needs
+     * to be cleared from its cell and or-ed into the blank's.
+     * @param state
+     * @param blank
+     * @param target
+     * @return the packed state after the move, whose blank is now at target
+     */
+    public static long slide(long state, int blank, int target) {
+        long tile = (state >>> (4 * target)) & 0xF;
+        return (state & ~(0xFL << (4 * target))) | (tile << (4 * blank));
+    }
+
+    /**
+     * returns the direction that moves the blank from cell from to the neighbouring cell to, or NO_MOVE if they aren't neighbours
+     * @param from
+     * @param to
+     * @return
+     */
+    public int direction(int from, int to) {
+        for (int dir = 0; dir < 4; dir++) {
+            if (targets[from * 4 + dir] == to) {
+                return dir;
+            }
+        }
+        return NO_MOVE;
+    }
+
+    /**
+     * writes every child of a state into the given arrays, which need room for 4 entries
+     * @param state
+     * @param blank
+     * @param childStates
+     * @param childBlanks
+     * @return the number of children written
+     */
+    public int children(long state, int blank, long[] childStates, int[] childBlanks) {
+        int count = 0;
+        for (int dir = 0; dir < 4; dir++) {
+            int t = targets[blank * 4 + dir];
+            if (t >= 0) {
+                childStates[count] = slide(state, blank, t);
+                childBlanks[count++] = t;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A move swaps the blank with a neighbour, which flips both the parity of the permutation (counting the blank as the
+     * last tile) and the parity of the blank's distance from its home cell. A board can only reach the goal if the two
+     * parities agree, and every board whose parities agree can.
+     * @param tiles row-major tiles
+     * @param blank
+     * @return whether the board can be solved
+     */
+    public boolean isSolvable(int[] tiles, int blank) {
+        int inversions = 0;
+        for (int i = 0; i < size; i++) {
+            int a = tiles[i] == 0 ? size : tiles[i];
+            for (int j = i + 1; j < size; j++) {
+                int b = tiles[j] == 0 ? size : tiles[j];
+                if (a > b) {
+                    inversions++;
+                }
+            }
+        }
+        return (inversions & 1) == (distance(0, blank) & 1);
+    }
+
+    /**
+     * the same check as isSolvable(int[], int), reading the tiles straight from a packed state
+     * @param state
+     * @param blank
+     * @return
+     */
+    public boolean isSolvable(long state, int blank) {
+        int inversions = 0;
+        for (int i = 0; i < size; i++) {
+            int a = tileAt(state, i) == 0 ? size : tileAt(state, i);
+            for (int j = i + 1; j < size; j++) {
+                int b = tileAt(state, j) == 0 ? size : tileAt(state, j);
+                if (a > b) {
+                    inversions++;
+                }
+            }
+        }
+        return (inversions & 1) == (distance(0, blank) & 1);
+    }
+
+    /**
+     * returns the number of moves needed to bring tile from cell k to its intended cell
+     * @param tile
+     * @param k
+     * @return
+     */
+    public int distance(int tile, int k) {
+        return distances[tile * size + k];
+    }
+
+    /**
+     * sums distance over every tile of a packed state, leaving out the blank
+     * @param state
+     * @return
+     */
+    public int manhattan(long state) {
+        int total = 0;
+        for (int k = 0; k < size; k++) {
+            int tile = tileAt(state, k);
+            if (tile != 0) {
+                total += distances[tile * size + k];
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Estimates how many moves a packed board is from the goal. Estimates must never overestimate, or A* and IDA* lose their
+ * guarantee of a shortest path.
+ *
+ * Searches evaluate the root in full with estimate and every board after it with delta, which only has to account for the
+ * one tile a move shifts. Implementations should override delta whenever they can do better than two full estimates.
+ * Heuristics that need more of the board than the moved tile to score a move can keep a summary of the board in a long
+ * (summarize), updated a move at a time with summaryAfter; a search that passes the summary to delta spares them a pass
+ * over the board. IdaStarSolver carries the summary down its path, and the other searches summarize each board they
+ * expand once for all of its children.
+ * Code that needs full estimates of many boards at once, such as a frontier being requeued, should hand them over together
+ * through estimateAll, which a heuristic can override to score several boards per instruction.
+ * Created by help
+ */
+public interface Heuristic {
+    /**
+     * @param state a packed board
+     * @return a lower bound on the number of moves needed to solve state
+     */
+    int estimate(long state);
+
+    /**
+     * returns how much the estimate changes when tile slides from cell from into the blank at cell to
+     * @param state the packed board before the move
+     * @param tile
+     * @param from
+     * @param to
+     * @return
+     */
+    default int delta(long state, int tile, int from, int to) {
+        return estimate(Geometry.slide(state, to, from)) - estimate(state);
+    }
+
+    /**
+     * @param state a packed board
+     * @return what delta needs to know about state besides the moved tile, or 0 if delta needs nothing more
+     */
+    default long summarize(long state) {
+        return 0;
+    }
+
+    /**
+     * @param summary summarize of the board before the move
+     * @param tile
+     * @param from
+     * @param to
+     * @return the summary of the board after tile slides from cell from into the blank at cell to
+     */
+    default long summaryAfter(long summary, int tile, int from, int to) {
+        return summary;
+    }
+
+    /**
+     * the same as delta(state, tile, from, to), given summarize(state) as well
+     * @param state
+     * @param summary
+     * @param tile
+     * @param from
+     * @param to
+     * @return
+     */
+    default int delta(long state, long summary, int tile, int from, int to) {
+        return delta(state, tile, from, to);
+    }
+
+    /**
+     * estimates the first count boards of states
+     * @param states packed boards
+     * @param estimates receives estimate(states[i]) at i
+     * @param count
+     */
+    default void estimateAll(long[] states, int[] estimates, int count) {
+        for (int i = 0; i < count; i++) {
+            estimates[i] = estimate(states[i]);
+        }
+    }
+}
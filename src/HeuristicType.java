@@ -0,0 +1,29 @@
+/**
+ * The heuristics a solve can be run with, from cheapest and weakest to strongest.
+ * The default is chosen with -Deighttiles.heuristic and is LINEAR_CONFLICT. PATTERN_DATABASE has to be asked for, since it
+ * starts building a database in the background the first time a shape without one is solved, and falls back to linear
+ * conflicts until it is ready.
+ * Created by help
+ */
+public enum HeuristicType {
+    MANHATTAN,
+    LINEAR_CONFLICT,
+    WALKING_DISTANCE,
+    PATTERN_DATABASE;
+
+    /**
+     * @param geometry
+     * @return this heuristic for boards of the given shape. Boards too large to pack only support MANHATTAN.
+     */
+    public Heuristic create(Geometry geometry) {
+        if (this == MANHATTAN || !geometry.isPacked()) {
+            return ManhattanHeuristic.create(geometry);
+        } else if (this == LINEAR_CONFLICT) {
+            return new LinearConflictHeuristic(geometry);
+        } else if (this == WALKING_DISTANCE) {
+            return new WalkingDistanceHeuristic(geometry);
+        }
+        PatternDatabase db = PatternDatabase.forGeometry(geometry);
+        return db != null ? db : new LinearConflictHeuristic(geometry);
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * Iterative-deepening A*: a series of depth-first searches, each cut off once cost + heuristic passes a bound, with the bound
+ * raised to the smallest cut-off value after every round. Nothing but the current path is remembered, so memory stays flat
+ * however deep the solution is.
+ *
+ * The search runs on a single mutable copy of the board. Each move is made in place and undone when the search backs up, and
+ * the path is an explicit stack of directions instead of recursion. A move that would undo the previous one is never tried.
+ * A solver keeps its stacks between calls, so a thread can reuse one instance for many boards. It isn't safe to share one
+ * instance between threads.
+ *
+ * The heuristic is updated with Heuristic.delta for the one tile each move shifts, and its summary of the board is carried
+ * along the path with summaryAfter, so delta never has to look at the whole board. It defaults to Manhattan distance. Any
+ * other heuristic reads the packed board, which is kept alongside the tile array; boards too large to pack only support
+ * ManhattanHeuristic, whose delta never looks at the board.
+ * Created by help
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+public class IdaStarSolver {
+    private static final int INITIAL_DEPTH = 64;
+
+    private final Geometry geometry;
+    private final Heuristic heuristic;
+    private final int[] tiles;
+    private long state;
+    private byte[] path = new byte[INITIAL_DEPTH];
+    private byte[] nextDir = new byte[INITIAL_DEPTH + 1];
+    private int[] heuristics = new int[INITIAL_DEPTH + 1];
+    private long[] summaries = new long[INITIAL_DEPTH + 1];
+    long expanded;
+    private int closest;
+    private SearchProgress progress;
+    private SearchStats stats;
+
+    public IdaStarSolver(Geometry geometry) {
+        this(geometry, new ManhattanHeuristic(geometry));
+    }
+
+    public IdaStarSolver(Geometry geometry, Heuristic heuristic) {
+        if (!(heuristic instanceof ManhattanHeuristic) && !geometry.isPacked()) {
+            throw new IllegalArgumentException(geometry + " boards are too large for a packed heuristic");
+        }
+        this.geometry = geometry;
+        this.heuristic = heuristic;
+        tiles = new int[geometry.size];
+    }
+
+    /**
+     * searches for a shortest solution of the given board
+     * @param start
+     * @return the solution, or one holding the closest reachable board if the board can't be solved
+     */
+    public Solution solve(Board start) {
+        return solve(start, SearchProgress.NONE);
+    }
+
+    /**
+     * the same as solve(start), reporting to progress every SearchProgress.INTERVAL expanded boards and stopping if it is
+     * cancelled
+     * @param start
+     * @param progress
+     * @return the solution, or one holding the closest reachable board if the board can't be solved
+     * @throws CancellationException if progress cancels the search
+     */
+    public Solution solve(Board start, SearchProgress progress) {
+        stats = new SearchStats("IDA_STAR");
+        stats.start(start);
+        this.progress = progress;
+        expanded = 0;
+        start.copyTiles(tiles);
+        state = start.state;
+        if (!geometry.isSolvable(tiles, start.blank)) {
+            return Solution.unsolvable(start).record(stats);
+        }
+        int bound = estimate();
+        closest = bound;
+        while (true) {
+            stats.iteration(bound);
+            int next = search(start.blank, bound);
+            stats.expanded = expanded;
+            if (next < 0) {
+                return new Solution(start, Arrays.copyOf(path, -next - 1), expanded).record(stats);
+            }
+            bound = next;
+        }
+    }
+
+    /**
+     * runs one depth-first round. Every move made is undone before returning, unless the goal was found.
+     * @param blank
+     * @param bound
+     * @return the smallest cost + heuristic that went over bound, or -(depth + 1) if the goal was reached at depth
+     */
+    private int search(int blank, int bound) {
+        int next = Integer.MAX_VALUE;
+        int depth = 0;
+        heuristics[0] = estimate();
+        summaries[0] = geometry.isPacked() ? heuristic.summarize(state) : 0;
+        stats.heuristicEvaluations++;
+        nextDir[0] = 0;
+        if (heuristics[0] == 0) {
+            return -1;
+        }
+        while (depth >= 0) {
+            if (nextDir[depth] == 4) {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+                int previous = geometry.target(blank, path[depth] ^ 1);
+                tiles[blank] = tiles[previous];
+                tiles[previous] = 0;
+                state = Geometry.slide(state, blank, previous);
+                blank = previous;
+                continue;
+            }
+            int dir = nextDir[depth]++;
+            if (depth > 0 && dir == (path[depth - 1] ^ 1)) {
+                continue;
+            }
+            int target = geometry.target(blank, dir);
+            if (target < 0) {
+                continue;
+            }
+            int tile = tiles[target];
+            long child = Geometry.slide(state, blank, target);
+            int h = heuristics[depth] + heuristic.delta(state, summaries[depth], tile, target, blank);
+            stats.generated++;
+            stats.heuristicEvaluations++;
+            int f = depth + 1 + h;
+            if (f > bound) {
+                if (f < next) {
+                    next = f;
+                }
+                continue;
+            }
+            long summary = heuristic.summaryAfter(summaries[depth], tile, target, blank);
+            tiles[blank] = tile;
+            tiles[target] = 0;
+            state = child;
+            blank = target;
+            if (depth == path.length) {
+                grow();
+            }
+            path[depth++] = (byte) dir;
+            stats.frontier(depth);
+            heuristics[depth] = h;
+            summaries[depth] = summary;
+            nextDir[depth] = 0;
+            expanded++;
+            if (h == 0) {
+                return -depth - 1;
+            }
+            closest = Math.min(closest, h);
+            if (expanded % SearchProgress.INTERVAL == 0) {
+                progress.update(expanded, closest);
+                if (progress.isCancelled()) {
+                    stats.expanded = expanded;
+                    stats.finish(-1);
+                    throw new CancellationException("search cancelled after " + expanded + " boards");
+                }
+            }
+        }
+        return next;
+    }
+
+    private void grow() {
+        path = Arrays.copyOf(path, path.length * 2);
+        nextDir = Arrays.copyOf(nextDir, path.length + 1);
+        heuristics = Arrays.copyOf(heuristics, path.length + 1);
+        summaries = Arrays.copyOf(summaries, path.length + 1);
+    }
+
+    private int estimate() {
+        if (geometry.isPacked()) {
+            return heuristic.estimate(state);
+        }
+        int total = 0;
+        for (int k = 0; k < tiles.length; k++) {
+            if (tiles[k] != 0) {
+                total += geometry.distance(tiles[k], k);
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Manhattan distance plus linear conflicts. When two tiles are in the row (or column) they belong to, but in the wrong order,
+ * one of them has to leave the line and come back, which costs 2 moves Manhattan distance doesn't see. For each line this
+ * counts the fewest tiles that must leave so the rest are in order (the tiles in the line minus the longest run of them in
+ * increasing order) and adds 2 for each.
+ *
+ * A horizontal move keeps the order of the tiles in every row and only changes the two columns the tile leaves and enters,
+ * and a vertical move only changes two rows, so delta re-examines just those two lines. estimateAll takes the Manhattan
+ * part of a batch from ManhattanHeuristic.create, which is vectorized when the Vector API is there, and adds the conflicts.
+ * Created by help
+ */
+public class LinearConflictHeuristic implements Heuristic {
+    final Geometry geometry;
+    private final ManhattanHeuristic manhattan;
+
+    public LinearConflictHeuristic(Geometry geometry) {
+        if (!geometry.isPacked()) {
+            throw new IllegalArgumentException(geometry + " boards are too large for linear conflicts");
+        }
+        this.geometry = geometry;
+        manhattan = ManhattanHeuristic.create(geometry);
+    }
+
+    @Override
+    public int estimate(long state) {
+        return geometry.manhattan(state) + 2 * conflicts(state);
+    }
+
+    @Override
+    public void estimateAll(long[] states, int[] estimates, int count) {
+        manhattan.estimateAll(states, estimates, count);
+        for (int i = 0; i < count; i++) {
+            estimates[i] += 2 * conflicts(states[i]);
+        }
+    }
+
+    @Override
+    public int delta(long state, int tile, int from, int to) {
+        int change = manhattan.delta(state, tile, from, to);
+        long after = Geometry.slide(state, to, from);
+        int fromRow = from / geometry.cols;
+        int toRow = to / geometry.cols;
+        if (fromRow == toRow) {
+            int fromCol = from % geometry.cols;
+            int toCol = to % geometry.cols;
+            change += 2 * (columnConflicts(after, fromCol) + columnConflicts(after, toCol)
+                    - columnConflicts(state, fromCol) - columnConflicts(state, toCol));
+        } else {
+            change += 2 * (rowConflicts(after, fromRow) + rowConflicts(after, toRow)
+                    - rowConflicts(state, fromRow) - rowConflicts(state, toRow));
+        }
+        return change;
+    }
+
+    /**
+     * @param state
+     * @return the number of tiles that have to leave their row or column, summed over every line
+     */
+    private int conflicts(long state) {
+        int total = 0;
+        for (int row = 0; row < geometry.rows; row++) {
+            total += rowConflicts(state, row);
+        }
+        for (int col = 0; col < geometry.cols; col++) {
+            total += columnConflicts(state, col);
+        }
+        return total;
+    }
+
+    /**
+     * @param state
+     * @param row
+     * @return the number of tiles that have to leave row so the tiles that belong there are in order
+     */
+    private int rowConflicts(long state, int row) {
+        return conflicts(state, row * geometry.cols, 1, geometry.cols, true);
+    }
+
+    /**
+     * @param state
+     * @param col
+     * @return the number of tiles that have to leave col so the tiles that belong there are in order
+     */
+    private int columnConflicts(long state, int col) {
+        return conflicts(state, col, geometry.cols, geometry.rows, false);
+    }
+
+    /**
+     * Walks the cells of a line and, for each tile that belongs in it, finds the longest increasing run of home positions
+     * ending at that tile. Home positions and run lengths are kept 4 bits apiece in two longs so nothing is allocated.
+     * @param state
+     * @param first the line's first cell
+     * @param step the distance between its cells
+     * @param length the number of cells in the line
+     * @param row whether the line is a row
+     * @return the tiles in the line that belong there minus the longest run of them in order
+     */
+    private int conflicts(long state, int first, int step, int length, boolean row) {
+        int line = row ? first / geometry.cols : first;
+        long homes = 0;
+        long runs = 0;
+        int count = 0;
+        int longest = 0;
+        for (int i = 0; i < length; i++) {
+            int tile = Geometry.tileAt(state, first + i * step);
+            if (tile == 0 || (row ? (tile - 1) / geometry.cols : (tile - 1) % geometry.cols) != line) {
+                continue;
+            }
+            int home = row ? (tile - 1) % geometry.cols : (tile - 1) / geometry.cols;
+            int run = 1;
+            for (int j = 0; j < count; j++) {
+                if (Geometry.tileAt(homes, j) < home) {
+                    run = Math.max(run, Geometry.tileAt(runs, j) + 1);
+                }
+            }
+            homes |= (long) home << (4 * count);
+            runs |= (long) run << (4 * count);
+            longest = Math.max(longest, run);
+            count++;
+        }
+        return count - longest;
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * The sum over every tile of its row and column distance from its home cell. A move changes only the distance of the tile it
+ * shifts, so delta is a pair of table reads and never looks at the board, which also lets it run on boards too large to pack.
+ *
+ * create returns VectorManhattanHeuristic when it can, which scores batches of boards with the incubating Vector API in
+ * estimateAll. That class lives in the vector/ source root and is only compiled and run with
+ * --add-modules jdk.incubator.vector, so it is looked up by name, once per JVM, and this class is the fallback whenever it is
+ * missing or -Deighttiles.vector=false.
+ * Created by help
+ */
+
+import java.lang.reflect.Constructor;
+
+public class ManhattanHeuristic implements Heuristic {
+    final Geometry geometry;
+
+    /**
+     * looks VectorManhattanHeuristic up the first time create needs it
+     */
+    private static final class Vectorized {
+        // null if the vectorized heuristic can't be used in this JVM
+        static final Constructor<?> constructor = find();
+
+        private static Constructor<?> find() {
+            if (!Boolean.parseBoolean(System.getProperty("eighttiles.vector", "true"))
+                    || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+                return null;
+            }
+            try {
+                return Class.forName("VectorManhattanHeuristic").getConstructor(Geometry.class);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // not compiled in
+                return null;
+            }
+        }
+    }
+
+    public ManhattanHeuristic(Geometry geometry) {
+        this.geometry = geometry;
+    }
+
+    /**
+     * @param geometry
+     * @return the vectorized heuristic for packed boards if the Vector API and VectorManhattanHeuristic are available, and
+     * this scalar one otherwise
+     */
+    public static ManhattanHeuristic create(Geometry geometry) {
+        if (geometry.isPacked() && Vectorized.constructor != null) {
+            try {
+                return (ManhattanHeuristic) Vectorized.constructor.newInstance(geometry);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // the Vector API failed to start on this machine
+            }
+        }
+        return new ManhattanHeuristic(geometry);
+    }
+
+    @Override
+    public int estimate(long state) {
+        return geometry.manhattan(state);
+    }
+
+    @Override
+    public int delta(long state, int tile, int from, int to) {
+        return geometry.distance(tile, to) - geometry.distance(tile, from);
+    }
+}
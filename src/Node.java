@@ -1,31 +1,26 @@
 /**
- * A node containing a board and its heuristic as well as the predecessor board leading to it. previousBoard will always be null for a root node.
+ * The root of a SearchTree: a board and its heuristic.
  * Created by help
  */
-public class Node implements Comparable {
+public class Node {
     Board board;
     int heuristic;
-    Board previousBoard;
 
-    Node(Board a, Board b) {
-        previousBoard = a;
-        board = new Board(b);
-        heuristic = board.currentHeuristic();
+    /**
+     * copies b and estimates it with its default heuristic
+     * @param b
+     */
+    Node(Board b) {
+        this(new Board(b), b.currentHeuristic());
     }
 
     /**
-     * Comparator function for Node. Since boards of different orientations can have the same heuristic, calls the board's equality function instead.
-     * @param o
-     * @return
+     * Wraps b as it is, without copying it or estimating it again
+     * @param b
+     * @param heuristic
      */
-    @Override
-    public int compareTo(Object o) {
-        Node n = (Node) o;
-        if (this.board.equals(n.board))
-            return 0;
-        else if (this.heuristic < n.heuristic) {
-            return -1;
-        } else
-            return 1;
+    Node(Board b, int heuristic) {
+        board = b;
+        this.heuristic = heuristic;
     }
 }
@@ -0,0 +1,121 @@
+/**
+ * Search nodes stored as parallel primitive arrays instead of objects. A node is just an index into the arrays, holding its
+ * packed board, blank cell, parent node, the move that reached it, its cost and its heuristic.
+ *
+ * reset forgets every node at once without touching the arrays, so an arena reused for solve after solve allocates nothing
+ * once it has grown to the size of the largest search it has held. The arrays double when they fill up and never shrink.
+ * Created by help
+ */
+
+import java.util.Arrays;
+
+public class NodeArena {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] states = new long[INITIAL_CAPACITY];
+    private byte[] blanks = new byte[INITIAL_CAPACITY];
+    private int[] parents = new int[INITIAL_CAPACITY];
+    private byte[] moves = new byte[INITIAL_CAPACITY];
+    private int[] costs = new int[INITIAL_CAPACITY];
+    private int[] heuristics = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * @param state
+     * @param blank
+     * @param parent -1 for a root
+     * @param move Geometry.NO_MOVE for a root
+     * @param cost
+     * @param heuristic
+     * @return the new node
+     */
+    public int add(long state, int blank, int parent, int move, int cost, int heuristic) {
+        if (size == states.length) {
+            grow();
+        }
+        int node = size++;
+        states[node] = state;
+        blanks[node] = (byte) blank;
+        heuristics[node] = heuristic;
+        reparent(node, parent, move, cost);
+        return node;
+    }
+
+    /**
+     * records a cheaper way of reaching a node
+     * @param node
+     * @param parent
+     * @param move
+     * @param cost
+     */
+    public void reparent(int node, int parent, int move, int cost) {
+        parents[node] = parent;
+        moves[node] = (byte) move;
+        costs[node] = cost;
+    }
+
+    /**
+     * forgets every node, keeping the arrays
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of nodes the arena holds before it has to grow
+     */
+    public int capacity() {
+        return states.length;
+    }
+
+    public long stateOf(int node) {
+        return states[node];
+    }
+
+    public int blankOf(int node) {
+        return blanks[node];
+    }
+
+    public int parentOf(int node) {
+        return parents[node];
+    }
+
+    public int moveOf(int node) {
+        return moves[node];
+    }
+
+    public int costOf(int node) {
+        return costs[node];
+    }
+
+    public int heuristicOf(int node) {
+        return heuristics[node];
+    }
+
+    /**
+     * @param node
+     * @return the moves from the root to node
+     */
+    public byte[] pathTo(int node) {
+        byte[] path = new byte[costs[node]];
+        for (int i = path.length - 1; i >= 0; i--) {
+            path[i] = moves[node];
+            node = parents[node];
+        }
+        return path;
+    }
+
+    private void grow() {
+        int capacity = states.length * 2;
+        states = Arrays.copyOf(states, capacity);
+        blanks = Arrays.copyOf(blanks, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        moves = Arrays.copyOf(moves, capacity);
+        costs = Arrays.copyOf(costs, capacity);
+        heuristics = Arrays.copyOf(heuristics, capacity);
+    }
+}
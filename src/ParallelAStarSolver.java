@@ -0,0 +1,339 @@
+/**
+ * Hash-distributed A* (HDA*): one A* search spread over several threads. Every board is owned by one worker, picked from a
+ * hash of its packed state, and only the owner ever queues it or records it. A worker expands the best board of its own
+ * BucketQueue and sends each child to the child's owner; children are collected per owner and sent in batches through
+ * lock-free mailboxes, so workers never wait on each other.
+ *
+ * Workers don't expand in global f order, so a board can be reached again by a cheaper path after it was expanded, in which
+ * case it is simply queued again. Reaching the goal only gives an upper bound; the search carries on until no worker has a
+ * board with f below the best goal cost found, which keeps solutions as short as sequential A*'s.
+ *
+ * The search is over when every worker is idle and no batch is in flight. Both are tracked by one counter, work: a worker
+ * counts 1 while it is busy, and each batch counts 1 from being sent until its owner has queued its boards. A worker only
+ * picks work up again after counting itself busy, so work can't reach 0 while anything is left to do.
+ *
+ * Workers run on a pool of daemon threads shared by every solver, so solving again reuses the threads of earlier solves
+ * instead of starting new ones.
+ *
+ * The stats of a solve add up every worker's counters, including the bytes each allocated; peak frontier and closed sizes are
+ * the sums of each worker's peaks.
+ * Created by help
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class ParallelAStarSolver {
+    private static final int BATCH_SIZE = 256;
+    private static final int FLUSH_INTERVAL = 64;
+    private static final long IDLE_PARK_NANOS = 20_000;
+    private static final ExecutorService pool = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "hda-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Geometry geometry;
+    private final Heuristic heuristic;
+    private final int threads;
+
+    private Worker[] workers;
+    private final AtomicLong work = new AtomicLong();
+    private final AtomicInteger bestCost = new AtomicInteger();
+    private volatile boolean done;
+
+    public ParallelAStarSolver(Geometry geometry, Heuristic heuristic, int threads) {
+        if (!geometry.isPacked()) {
+            throw new IllegalArgumentException(geometry + " boards are too large to search with A*, use IdaStarSolver");
+        }
+        this.geometry = geometry;
+        this.heuristic = heuristic;
+        this.threads = threads;
+    }
+
+    /**
+     * searches for a shortest solution of the given board on this solver's threads
+     * @param start
+     * @return the solution, or one holding the closest reachable board if the board can't be solved
+     * @throws CancellationException if the calling thread is interrupted, which stops the workers and leaves it interrupted
+     */
+    public Solution solve(Board start) {
+        SearchStats stats = new SearchStats("PARALLEL_A_STAR");
+        stats.start(start);
+        if (!geometry.isSolvable(start.state, start.blank)) {
+            return Solution.unsolvable(start).record(stats);
+        }
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(i);
+        }
+        work.set(threads);
+        bestCost.set(Integer.MAX_VALUE);
+        done = false;
+        workers[ownerOf(start.state)].receive(start.state, start.blank, 0, heuristic.estimate(start.state), Geometry.NO_MOVE);
+
+        Future<?>[] running = new Future<?>[threads];
+        for (int i = 0; i < threads; i++) {
+            running[i] = pool.submit(workers[i]);
+        }
+        try {
+            for (Future<?> worker : running) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            done = true;
+            // the workers see done within one expansion; wait for them so the next solve starts from a quiet solver
+            awaitQuietly(running);
+            Thread.currentThread().interrupt();
+            stats.finish(-1);
+            throw new CancellationException("parallel search interrupted");
+        } catch (ExecutionException e) {
+            done = true;
+            awaitQuietly(running);
+            throw new IllegalStateException("a worker failed", e.getCause());
+        }
+        long expanded = 0;
+        for (Worker w : workers) {
+            expanded += w.expanded;
+            stats.generated += w.generated;
+            stats.duplicates += w.duplicates;
+            stats.heuristicEvaluations += w.generated;
+            stats.peakFrontier += w.peakOpen;
+            stats.peakClosed += w.closed.size();
+            stats.allocatedElsewhere(w.allocated);
+        }
+        stats.expanded = expanded;
+        return new Solution(start, pathTo(start), expanded).record(stats);
+    }
+
+    /**
+     * waits for every worker to finish, without being interrupted
+     * @param running
+     */
+    private static void awaitQuietly(Future<?>[] running) {
+        boolean interrupted = false;
+        for (Future<?> worker : running) {
+            while (true) {
+                try {
+                    worker.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * walks back from the goal by undoing the move each owner recorded, once every worker has stopped
+     * @param start
+     * @return
+     */
+    private byte[] pathTo(Board start) {
+        byte[] moves = new byte[bestCost.get()];
+        long state = geometry.goal;
+        int blank = geometry.goalBlank;
+        int length = 0;
+        while (state != start.state) {
+            int move = workers[ownerOf(state)].closed.moveOf(state);
+            int previous = geometry.target(blank, move ^ 1);
+            state = Geometry.slide(state, blank, previous);
+            blank = previous;
+            moves[length++] = (byte) move;
+        }
+        moves = Arrays.copyOf(moves, length);
+        for (int i = 0; i < length / 2; i++) {
+            byte t = moves[i];
+            moves[i] = moves[length - 1 - i];
+            moves[length - 1 - i] = t;
+        }
+        return moves;
+    }
+
+    /**
+     * picks a worker from the top bits of the same multiplicative hash StateTable uses, whose slots come from the low bits,
+     * so each worker's table still sees well spread hashes
+     * @param state
+     * @return
+     */
+    private int ownerOf(long state) {
+        return (int) ((((state * 0x9E3779B97F4A7C15L) >>> 32) * threads) >>> 32);
+    }
+
+    /**
+     * lowers bestCost to cost unless it is already lower
+     * @param cost
+     */
+    private void offerGoal(int cost) {
+        int best = bestCost.get();
+        while (cost < best && !bestCost.compareAndSet(best, cost)) {
+            best = bestCost.get();
+        }
+    }
+
+    private class Worker implements Runnable {
+        final int id;
+        final BucketQueue open = new BucketQueue();
+        final StateTable closed = new StateTable();
+        final ConcurrentLinkedQueue<long[]> mailbox = new ConcurrentLinkedQueue<>();
+        final long[][] outbox = new long[threads][];
+        final int[] outboxSize = new int[threads];
+        long expanded;
+        long generated;
+        long duplicates;
+        int peakOpen;
+        long allocated;
+
+        Worker(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void run() {
+            long allocatedAtStart = SearchStats.allocatedBytes();
+            try {
+                search();
+            } finally {
+                allocated = allocatedAtStart < 0 ? -1 : SearchStats.allocatedBytes() - allocatedAtStart;
+            }
+        }
+
+        private void search() {
+            boolean busy = true;
+            long[] childStates = new long[4];
+            int[] childBlanks = new int[4];
+            int sinceFlush = 0;
+            while (!done) {
+                if (!busy) {
+                    if (mailbox.isEmpty()) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                        continue;
+                    }
+                    busy = true;
+                    work.incrementAndGet();
+                }
+                long[] batch;
+                while ((batch = mailbox.poll()) != null) {
+                    for (int i = 0; i < batch.length; i += 2) {
+                        long packed = batch[i + 1];
+                        receive(batch[i], (int) (packed >>> 40) & 0xFF, (int) packed & 0xFFFF,
+                                (int) (packed >>> 16) & 0xFFFF, (int) (packed >>> 32) & 0xFF);
+                    }
+                    work.decrementAndGet();
+                }
+
+                int slot = next();
+                if (slot < 0) {
+                    flush();
+                    busy = false;
+                    if (work.decrementAndGet() == 0) {
+                        done = true;
+                    }
+                    continue;
+                }
+                long state = open.stateOf(slot);
+                int blank = open.blankOf(slot);
+                int cost = open.costOf(slot);
+                int h = open.heuristicOf(slot);
+                expanded++;
+                long summary = heuristic.summarize(state);
+                int count = geometry.children(state, blank, childStates, childBlanks);
+                for (int i = 0; i < count; i++) {
+                    int target = childBlanks[i];
+                    int childH = h + heuristic.delta(state, summary, Geometry.tileAt(state, target), target, blank);
+                    generated++;
+                    if (cost + 1 + childH >= bestCost.get()) {
+                        continue;
+                    }
+                    int move = geometry.direction(blank, target);
+                    int owner = ownerOf(childStates[i]);
+                    if (owner == id) {
+                        receive(childStates[i], target, cost + 1, childH, move);
+                    } else {
+                        send(owner, childStates[i], target, cost + 1, childH, move);
+                    }
+                }
+                if (++sinceFlush == FLUSH_INTERVAL) {
+                    sinceFlush = 0;
+                    flush();
+                }
+            }
+        }
+
+        /**
+         * pops the best queued board that is still current and could still lead to a shorter solution
+         * @return its slot in open, or -1 if there is none
+         */
+        private int next() {
+            int slot;
+            while ((slot = open.pop()) >= 0) {
+                if (open.costOf(slot) == closed.costOf(open.stateOf(slot))
+                        && open.costOf(slot) + open.heuristicOf(slot) < bestCost.get()) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * records a board owned by this worker and queues it, unless it was already reached at least as cheaply
+         */
+        void receive(long state, int blank, int cost, int h, int move) {
+            int oldCost = closed.costOf(state);
+            if (oldCost >= 0 && oldCost <= cost) {
+                duplicates++;
+                return;
+            }
+            closed.put(state, move, cost);
+            if (state == geometry.goal) {
+                offerGoal(cost);
+            } else {
+                open.push(state, blank, cost, h, cost + h);
+                if (open.size() > peakOpen) {
+                    peakOpen = open.size();
+                }
+            }
+        }
+
+        private void send(int owner, long state, int blank, int cost, int h, int move) {
+            if (outbox[owner] == null) {
+                outbox[owner] = new long[BATCH_SIZE * 2];
+            }
+            int n = outboxSize[owner];
+            outbox[owner][n] = state;
+            outbox[owner][n + 1] = cost | (long) h << 16 | (long) move << 32 | (long) blank << 40;
+            outboxSize[owner] = n + 2;
+            if (outboxSize[owner] == outbox[owner].length) {
+                post(owner);
+            }
+        }
+
+        private void post(int owner) {
+            long[] batch = Arrays.copyOf(outbox[owner], outboxSize[owner]);
+            outboxSize[owner] = 0;
+            work.incrementAndGet();
+            workers[owner].mailbox.add(batch);
+        }
+
+        private void flush() {
+            for (int owner = 0; owner < threads; owner++) {
+                if (outboxSize[owner] > 0) {
+                    post(owner);
+                }
+            }
+        }
+    }
+}
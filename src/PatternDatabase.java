@@ -0,0 +1,471 @@
+/**
+ * A disjoint additive pattern database. The tiles are split into groups, and for every placement of a group's tiles the table
+ * stores how many moves of those tiles alone are needed to bring them home, whatever the other tiles do. Only moves of a
+ * group's own tiles are counted, so the groups' values can be added and the sum still never overestimates.
+ *
+ * Each table is indexed by the group's cells ranked as a partial permutation: cell i is numbered among the cells that the
+ * tiles before it leave free, so a group of k tiles on n cells needs n! / (n - k)! one-byte entries. Looking a board up costs
+ * one pass to find where each tile is, then one byte per group. A board's summary is that inverted board, the cell of every
+ * tile, which a move updates in two nibbles, so with the summary a move only ranks the moved tile's group twice.
+ *
+ * Tables are built once (see build and main), written to Constants.dataDirectory, and memory-mapped read-only, so loading is
+ * quick and every JVM on the machine shares the same pages.
+ * Created by help
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class PatternDatabase implements Heuristic {
+    private static final int MAGIC = 0x50444231; // "PDB1"
+    private static final int UNSEEN = 0xFF;
+
+    private static final ConcurrentHashMap<Geometry, PatternDatabase> loaded = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Geometry, Boolean> building = new ConcurrentHashMap<>();
+    private static final ExecutorService builder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "pattern-database-builder");
+        t.setDaemon(true);
+        return t;
+    });
+
+    final Geometry geometry;
+    final int[][] groups;
+    private final MappedByteBuffer tables;
+    private final int[] offsets;
+    private final int[] groupOf;
+
+    private PatternDatabase(Geometry geometry, int[][] groups, MappedByteBuffer tables, int[] offsets) {
+        this.geometry = geometry;
+        this.groups = groups;
+        this.tables = tables;
+        this.offsets = offsets;
+        groupOf = new int[geometry.size];
+        Arrays.fill(groupOf, -1);
+        for (int g = 0; g < groups.length; g++) {
+            for (int tile : groups[g]) {
+                groupOf[tile] = g;
+            }
+        }
+    }
+
+    /**
+     * sums the stored distance of every group
+     * @param state
+     * @return
+     */
+    @Override
+    public int estimate(long state) {
+        long cells = cellsOf(state, geometry.size);
+        int total = 0;
+        for (int g = 0; g < groups.length; g++) {
+            total += tables.get(offsets[g] + rank(groups[g], cells, geometry.size)) & 0xFF;
+        }
+        return total;
+    }
+
+    @Override
+    public int delta(long state, int tile, int from, int to) {
+        return groupOf[tile] < 0 ? 0 : delta(state, cellsOf(state, geometry.size), tile, from, to);
+    }
+
+    /**
+     * @param state
+     * @return cellsOf(state)
+     */
+    @Override
+    public long summarize(long state) {
+        return cellsOf(state, geometry.size);
+    }
+
+    @Override
+    public long summaryAfter(long summary, int tile, int from, int to) {
+        return (summary & ~(0xFL << (4 * tile)) & ~0xFL) | (long) to << (4 * tile) | from;
+    }
+
+    /**
+     * only the group holding the moved tile changes, so this reads that group's table before and after the move
+     * @param state
+     * @param summary
+     * @param tile
+     * @param from
+     * @param to
+     * @return
+     */
+    @Override
+    public int delta(long state, long summary, int tile, int from, int to) {
+        int g = groupOf[tile];
+        if (g < 0) {
+            return 0;
+        }
+        long cells = summary;
+        int before = tables.get(offsets[g] + rank(groups[g], cells, geometry.size)) & 0xFF;
+        cells = (cells & ~(0xFL << (4 * tile))) | ((long) to << (4 * tile));
+        return (tables.get(offsets[g] + rank(groups[g], cells, geometry.size)) & 0xFF) - before;
+    }
+
+    /**
+     * inverts a packed state: nibble t of the result holds the cell of tile t
+     * @param state
+     * @param size
+     * @return
+     */
+    static long cellsOf(long state, int size) {
+        long cells = 0;
+        for (int k = 0; k < size; k++) {
+            cells |= (long) k << (4 * Geometry.tileAt(state, k));
+        }
+        return cells;
+    }
+
+    /**
+     * ranks the cells of a group of tiles as a partial permutation of size cells
+     * @param group
+     * @param cells nibble t holds the cell of tile t
+     * @param size
+     * @return
+     */
+    static int rank(int[] group, long cells, int size) {
+        int used = 0;
+        int index = 0;
+        for (int i = 0; i < group.length; i++) {
+            int cell = (int) (cells >>> (4 * group[i])) & 0xF;
+            index = index * (size - i) + cell - Integer.bitCount(used & ((1 << cell) - 1));
+            used |= 1 << cell;
+        }
+        return index;
+    }
+
+    /**
+     * @param size
+     * @param k
+     * @return size! / (size - k)!, the number of ways to place k tiles on size cells
+     */
+    static int placements(int size, int k) {
+        long count = 1;
+        for (int i = 0; i < k; i++) {
+            count *= size - i;
+        }
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A group of " + k + " tiles is too large for " + size + " cells");
+        }
+        return (int) count;
+    }
+
+    /**
+     * the groups used when none are given: the 6-6-3 split for 4x4, 4-4 for 3x3, and runs of up to 6 tiles otherwise
+     * @param geometry
+     * @return
+     */
+    static int[][] defaultGroups(Geometry geometry) {
+        if (geometry.rows == 4 && geometry.cols == 4) {
+            return new int[][]{{1, 5, 6, 9, 10, 13}, {7, 8, 11, 12, 14, 15}, {2, 3, 4}};
+        }
+        int tiles = geometry.size - 1;
+        int perGroup = geometry.size == 9 ? 4 : 6;
+        int[][] groups = new int[(tiles + perGroup - 1) / perGroup][];
+        for (int g = 0; g < groups.length; g++) {
+            groups[g] = new int[Math.min(perGroup, tiles - g * perGroup)];
+            for (int i = 0; i < groups[g].length; i++) {
+                groups[g][i] = g * perGroup + i + 1;
+            }
+        }
+        return groups;
+    }
+
+    static Path defaultPath(Geometry geometry) {
+        return Constants.dataDirectory.resolve("pdb-" + geometry + ".bin");
+    }
+
+    /**
+     * returns the database for a geometry if it is already on disk. Otherwise queues a build on the background builder
+     * and returns null, so callers can carry on with a weaker heuristic until the file is ready (see HeuristicType).
+     * @param geometry
+     * @return
+     */
+    public static PatternDatabase forGeometry(Geometry geometry) {
+        if (!geometry.isPacked()) {
+            return null;
+        }
+        PatternDatabase db = loaded.get(geometry);
+        if (db != null) {
+            return db;
+        }
+        Path path = defaultPath(geometry);
+        if (Files.exists(path)) {
+            try {
+                return loaded.computeIfAbsent(geometry, g -> open(path));
+            } catch (IllegalStateException e) {
+                Constants.errorStream.println("Ignoring unreadable pattern database " + path + ": " + e.getMessage());
+                return null;
+            }
+        }
+        if (building.putIfAbsent(geometry, Boolean.TRUE) == null) {
+            builder.execute(() -> {
+                try {
+                    build(geometry, defaultGroups(geometry), path);
+                } catch (IOException e) {
+                    Constants.errorStream.println("Could not write pattern database " + path + ": " + e.getMessage());
+                }
+            });
+        }
+        return null;
+    }
+
+    /**
+     * memory-maps a database file written by build
+     * @param path
+     * @return
+     */
+    public static PatternDatabase open(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalStateException("not a pattern database");
+            }
+            Geometry geometry = Geometry.of(buffer.getInt(), buffer.getInt());
+            int[][] groups = new int[buffer.getInt()][];
+            for (int g = 0; g < groups.length; g++) {
+                groups[g] = new int[buffer.getInt()];
+                for (int i = 0; i < groups[g].length; i++) {
+                    groups[g][i] = buffer.getInt();
+                }
+            }
+            int[] offsets = new int[groups.length];
+            int offset = buffer.position();
+            for (int g = 0; g < groups.length; g++) {
+                offsets[g] = offset;
+                offset += placements(geometry.size, groups[g].length);
+            }
+            if (offset != channel.size()) {
+                throw new IllegalStateException("truncated pattern database");
+            }
+            return new PatternDatabase(geometry, groups, buffer, offsets);
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * computes a table for every group and writes them to path, through a temporary file so readers never see half a file
+     * @param geometry
+     * @param groups
+     * @param path
+     * @return the database, mapped from the new file
+     * @throws IOException
+     */
+    public static PatternDatabase build(Geometry geometry, int[][] groups, Path path) throws IOException {
+        if (!geometry.isPacked()) {
+            throw new IllegalArgumentException(geometry + " boards are too large for a pattern database");
+        }
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path tmp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            int headerSize = 4 * 4;
+            for (int[] group : groups) {
+                headerSize += 4 + 4 * group.length;
+            }
+            ByteBuffer header = ByteBuffer.allocate(headerSize);
+            header.putInt(MAGIC).putInt(geometry.rows).putInt(geometry.cols).putInt(groups.length);
+            for (int[] group : groups) {
+                header.putInt(group.length);
+                for (int tile : group) {
+                    header.putInt(tile);
+                }
+            }
+            header.flip();
+            channel.write(header);
+            for (int[] group : groups) {
+                channel.write(ByteBuffer.wrap(buildTable(geometry, group)));
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        PatternDatabase db = open(path);
+        loaded.put(geometry, db);
+        return db;
+    }
+
+    /**
+     * Breadth-first search backwards from the goal over placements of the group's tiles plus the blank. Moving the blank onto
+     * a cell no group tile is on costs nothing, and moving a group tile costs one, so states are expanded in order of cost
+     * with the free moves handled inside the current level. The result keeps the cheapest cost over every blank cell.
+     * @param geometry
+     * @param group
+     * @return
+     */
+    static byte[] buildTable(Geometry geometry, int[] group) {
+        int size = geometry.size;
+        int k = group.length;
+        byte[] cost = new byte[placements(size, k + 1)];
+        Arrays.fill(cost, (byte) UNSEEN);
+        int[] cells = new int[k + 1]; // cells[0] is the blank, cells[i] is group[i - 1]
+        cells[0] = geometry.goalBlank;
+        for (int i = 0; i < k; i++) {
+            cells[i + 1] = group[i] - 1;
+        }
+        int start = encode(cells, size);
+        cost[start] = 0;
+        IntQueue current = new IntQueue();
+        IntQueue next = new IntQueue();
+        current.add(start);
+        int level = 0;
+        while (!current.isEmpty()) {
+            while (!current.isEmpty()) {
+                int index = current.poll();
+                if ((cost[index] & 0xFF) != level) {
+                    continue;
+                }
+                decode(index, cells, size);
+                int blank = cells[0];
+                for (int dir = 0; dir < 4; dir++) {
+                    int target = geometry.target(blank, dir);
+                    if (target < 0) {
+                        continue;
+                    }
+                    int moved = 0;
+                    for (int i = 1; i <= k; i++) {
+                        if (cells[i] == target) {
+                            moved = i;
+                        }
+                    }
+                    cells[0] = target;
+                    if (moved != 0) {
+                        cells[moved] = blank;
+                    }
+                    int child = encode(cells, size);
+                    int childCost = moved != 0 ? level + 1 : level;
+                    if ((cost[child] & 0xFF) > childCost) {
+                        cost[child] = (byte) childCost;
+                        (moved != 0 ? next : current).add(child);
+                    }
+                    cells[0] = blank;
+                    if (moved != 0) {
+                        cells[moved] = target;
+                    }
+                }
+            }
+            IntQueue swap = current;
+            current = next;
+            next = swap;
+            level++;
+        }
+
+        byte[] table = new byte[placements(size, k)];
+        Arrays.fill(table, (byte) UNSEEN);
+        int[] groupCells = new int[k];
+        for (int index = 0; index < cost.length; index++) {
+            if ((cost[index] & 0xFF) == UNSEEN) {
+                continue;
+            }
+            decode(index, cells, size);
+            System.arraycopy(cells, 1, groupCells, 0, k);
+            int projected = encode(groupCells, size);
+            if ((cost[index] & 0xFF) < (table[projected] & 0xFF)) {
+                table[projected] = cost[index];
+            }
+        }
+        return table;
+    }
+
+    /**
+     * ranks a list of distinct cells as a partial permutation, the same way rank does
+     * @param cells
+     * @param size
+     * @return
+     */
+    private static int encode(int[] cells, int size) {
+        int used = 0;
+        int index = 0;
+        for (int i = 0; i < cells.length; i++) {
+            index = index * (size - i) + cells[i] - Integer.bitCount(used & ((1 << cells[i]) - 1));
+            used |= 1 << cells[i];
+        }
+        return index;
+    }
+
+    /**
+     * the inverse of encode
+     * @param index
+     * @param cells receives the cells
+     * @param size
+     */
+    private static void decode(int index, int[] cells, int size) {
+        for (int i = cells.length - 1; i >= 0; i--) {
+            cells[i] = index % (size - i);
+            index /= size - i;
+        }
+        int used = 0;
+        for (int i = 0; i < cells.length; i++) {
+            int free = cells[i];
+            int cell = 0;
+            while (true) {
+                if ((used & (1 << cell)) == 0) {
+                    if (free == 0) {
+                        break;
+                    }
+                    free--;
+                }
+                cell++;
+            }
+            cells[i] = cell;
+            used |= 1 << cell;
+        }
+    }
+
+    /**
+     * a growable FIFO of ints
+     */
+    private static class IntQueue {
+        private int[] items = new int[1024];
+        private int head;
+        private int tail;
+
+        void add(int item) {
+            if (tail == items.length) {
+                int[] target = head > items.length / 2 ? items : new int[items.length * 2];
+                System.arraycopy(items, head, target, 0, tail - head);
+                items = target;
+                tail -= head;
+                head = 0;
+            }
+            items[tail++] = item;
+        }
+
+        int poll() {
+            return items[head++];
+        }
+
+        boolean isEmpty() {
+            if (head == tail) {
+                head = 0;
+                tail = 0;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Builds the database for a board shape ahead of time: java PatternDatabase rows cols
+     * @param args
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        Geometry geometry = args.length >= 2 ? Geometry.of(Integer.parseInt(args[0]), Integer.parseInt(args[1])) : Geometry.DEFAULT;
+        Path path = defaultPath(geometry);
+        long start = System.currentTimeMillis();
+        build(geometry, defaultGroups(geometry), path);
+        Constants.errorStream.println("Wrote " + path + " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * Selects how autoSolve orders its frontier.
+ *  GREEDY expands the board with the lowest heuristic first. It is fast but its paths are usually far from the shortest.
+ *  A_STAR expands the board with the lowest path cost + heuristic first and returns a shortest path.
+ *  BIDIRECTIONAL searches breadth-first from the board and from the goal until they meet (see BidirectionalSolver), and
+ *  also returns a shortest path. It ignores the heuristic.
+ * Created by help
+ */
+public enum SearchMode {
+    GREEDY,
+    A_STAR,
+    BIDIRECTIONAL
+}
@@ -0,0 +1,32 @@
+/**
+ * Lets whoever started a search watch it and stop it. The search calls update every INTERVAL expanded boards, and checks
+ * isCancelled at the same time; once it returns true the search gives up by throwing a CancellationException.
+ * NONE does nothing and never cancels, for searches nobody is watching.
+ * Created by help
+ */
+public interface SearchProgress {
+    int INTERVAL = 4096;
+
+    SearchProgress NONE = new SearchProgress() {
+        @Override
+        public void update(long expanded, int bestHeuristic) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    /**
+     * called from the searching thread
+     * @param expanded the number of boards expanded so far
+     * @param bestHeuristic the lowest heuristic of any board reached so far
+     */
+    void update(long expanded, int bestHeuristic);
+
+    /**
+     * @return true if the search should stop
+     */
+    boolean isCancelled();
+}
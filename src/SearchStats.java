@@ -0,0 +1,208 @@
+/**
+ * What a single solve did: how many boards it generated, expanded and threw away as duplicates, how large its frontier and
+ * closed set grew, how often it evaluated the heuristic, and how long it took and how much it allocated. Every solver fills
+ * one in and hands it back with its SearchTree or Solution.
+ *
+ * A solve also emits JFR events when a flight recording is running: eighttiles.SolveStart and eighttiles.SolveFinish around
+ * it, and eighttiles.SolveIteration for each round of an iterative search (IDA* bounds, bidirectional layers). Counting
+ * costs a few increments per board; the events cost nothing unless they are enabled.
+ * Created by help
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+public class SearchStats {
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    final String solver;
+    long generated;
+    long expanded;
+    long duplicates;
+    long heuristicEvaluations;
+    long peakFrontier;
+    long peakClosed;
+    int iterations;
+    int solutionLength = -1;
+    long wallNanos;
+    long allocatedBytes = -1;
+
+    private long startNanos;
+    private long startAllocated;
+    private long allocatedElsewhere;
+    private SolveFinish finish;
+
+    SearchStats(String solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * starts the clock and the allocation counter of the calling thread
+     * @param board
+     */
+    void start(Board board) {
+        startNanos = System.nanoTime();
+        startAllocated = allocatedBytes();
+        SolveStart event = new SolveStart();
+        if (event.isEnabled()) {
+            event.solver = solver;
+            event.board = describe(board);
+            event.commit();
+        }
+        finish = new SolveFinish();
+        finish.begin();
+    }
+
+    /**
+     * counts bytes that other threads allocated for this solve, such as a parallel search's workers, into the allocation
+     * finish reports
+     * @param bytes -1 if the JVM can't tell, which is ignored
+     */
+    void allocatedElsewhere(long bytes) {
+        if (bytes > 0) {
+            allocatedElsewhere += bytes;
+        }
+    }
+
+    /**
+     * records the start of another round of an iterative search
+     * @param bound the round's cost bound or depth
+     */
+    void iteration(int bound) {
+        iterations++;
+        SolveIteration event = new SolveIteration();
+        if (event.isEnabled()) {
+            event.solver = solver;
+            event.iteration = iterations;
+            event.bound = bound;
+            event.expanded = expanded;
+            event.commit();
+        }
+    }
+
+    void frontier(long size) {
+        if (size > peakFrontier) {
+            peakFrontier = size;
+        }
+    }
+
+    void closed(long size) {
+        if (size > peakClosed) {
+            peakClosed = size;
+        }
+    }
+
+    /**
+     * stops the clock
+     * @param solutionLength the number of moves found, or -1 if there is no solution
+     */
+    void finish(int solutionLength) {
+        this.solutionLength = solutionLength;
+        wallNanos = System.nanoTime() - startNanos;
+        long allocated = allocatedBytes();
+        allocatedBytes = allocated < 0 || startAllocated < 0 ? -1 : allocated - startAllocated + allocatedElsewhere;
+        if (finish != null && finish.shouldCommit()) {
+            finish.end();
+            finish.solver = solver;
+            finish.solutionLength = solutionLength;
+            finish.generated = generated;
+            finish.expanded = expanded;
+            finish.duplicates = duplicates;
+            finish.heuristicEvaluations = heuristicEvaluations;
+            finish.peakFrontier = peakFrontier;
+            finish.peakClosed = peakClosed;
+            finish.allocatedBytes = allocatedBytes;
+            finish.commit();
+        }
+        finish = null;
+    }
+
+    /**
+     * @return the bytes allocated so far by the calling thread, or -1 if the JVM can't tell
+     */
+    static long allocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static String describe(Board board) {
+        int[] tiles = new int[board.geometry.size];
+        board.copyTiles(tiles);
+        StringBuilder sb = new StringBuilder(board.geometry.toString()).append(':');
+        for (int tile : tiles) {
+            sb.append(' ').append(tile);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return a one-line summary for the GUI
+     */
+    public String summary() {
+        return String.format("Expanded %,d boards in %.1f ms", expanded, wallNanos / 1e6);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %s moves, %,d generated, %,d expanded, %,d duplicates, %,d heuristic evaluations, "
+                        + "peak frontier %,d, peak closed %,d, %.1f ms, %s allocated",
+                solver, solutionLength < 0 ? "no" : Integer.toString(solutionLength), generated, expanded, duplicates,
+                heuristicEvaluations, peakFrontier, peakClosed, wallNanos / 1e6,
+                allocatedBytes < 0 ? "unknown" : String.format("%,d bytes", allocatedBytes));
+    }
+
+    @Name("eighttiles.SolveStart")
+    @Label("Solve Start")
+    @Category("EightTiles")
+    static class SolveStart extends Event {
+        @Label("Solver")
+        String solver;
+        @Label("Board")
+        String board;
+    }
+
+    @Name("eighttiles.SolveIteration")
+    @Label("Solve Iteration")
+    @Category("EightTiles")
+    static class SolveIteration extends Event {
+        @Label("Solver")
+        String solver;
+        @Label("Iteration")
+        int iteration;
+        @Label("Bound")
+        int bound;
+        @Label("Expanded So Far")
+        long expanded;
+    }
+
+    @Name("eighttiles.SolveFinish")
+    @Label("Solve Finish")
+    @Category("EightTiles")
+    static class SolveFinish extends Event {
+        @Label("Solver")
+        String solver;
+        @Label("Solution Length")
+        int solutionLength;
+        @Label("Generated")
+        long generated;
+        @Label("Expanded")
+        long expanded;
+        @Label("Duplicates")
+        long duplicates;
+        @Label("Heuristic Evaluations")
+        long heuristicEvaluations;
+        @Label("Peak Frontier")
+        long peakFrontier;
+        @Label("Peak Closed")
+        long peakClosed;
+        @Label("Allocated Bytes")
+        long allocatedBytes;
+    }
+}
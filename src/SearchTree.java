@@ -1,96 +1,76 @@
 /**
- * Used to hold a priority queue containing nodes. Also stores the best found node and its heuristic in the case of a solution not being found.
+ * The result of Board.autoSolve: the root board, the path another solver found from it, and the best board found with its
+ * heuristic in the case of a solution not being found. The path is kept as a Solution, a list of moves, and boards along it
+ * are only built as getNextBoard is called.
+ * The search itself runs elsewhere, in ArenaSolver, BidirectionalSolver or a DistanceOracle, and follow hands its Solution
+ * and stats over to the tree.
  * Created by help
  */
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.PriorityQueue;
-
 public class SearchTree {
-    public PriorityQueue<Node> boardQueue;
-    public HashMap<String, Node> oldBoards;
+    final SearchMode mode;
     Board bestBoardFound;
     int bestBoardHeuristic;
     Node rootNode;
-    ArrayList<Board> path;
+    Solution solution;
+    // the solution given to follow, which createPath then uses as is
+    private Solution followed;
+    SearchStats stats;
     int currentBoardIndex;
+    private Board currentBoard;
 
 
     public SearchTree(Node n) {
-        rootNode = new Node(null, n.board);
-        bestBoardFound = new Board(n.board);
-        bestBoardHeuristic = n.heuristic;
-        boardQueue = new PriorityQueue<>();
-        oldBoards = new HashMap<>();
-
-        oldBoards.put(convertBoardToStringSequence(n.board), n);
+        this(n, SearchMode.GREEDY);
     }
 
-    /**
-     * Adds a node to the priority queue if it doesn't already exist in the old boards
-     * @param n
-     */
-    public void addNode(Node n) {
-        String strSeq = convertBoardToStringSequence(n.board);
-        if (!oldBoards.containsKey(strSeq)) {
-            if (n.heuristic < bestBoardHeuristic) {
-                bestBoardFound = n.board;
-                bestBoardHeuristic = n.heuristic;
-            }
-            boardQueue.offer(n);
-            oldBoards.put(strSeq, n);
-        }
+    public SearchTree(Node n, SearchMode mode) {
+        this.mode = mode;
+        rootNode = n;
+        bestBoardFound = new Board(n.board);
+        bestBoardHeuristic = n.heuristic;
+        stats = new SearchStats(mode.name());
     }
 
     /**
-     * pops a node from the top of the queue and returns it
-     * @return
+     * records a solution found by another solver as this tree's path, and takes over its stats
+     * @param solution
      */
-    public Node pop() {
-        Node ret = boardQueue.poll();
-        return ret;
+    public void follow(Solution solution) {
+        stats = solution.stats;
+        followed = solution;
+        bestBoardFound = solution.boardAfter(solution.length());
+        bestBoardHeuristic = 0;
     }
 
     /**
-     * Converts a nxn grid from the board of a node to a string sequence to allow us to map it to said node
+     * Converts a nxn grid from the board of a node to a string sequence, for display
      * @param b
      * @return
      */
     public String convertBoardToStringSequence(Board b) {
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < Constants.dimX; i++) {
-            for (int j = 0; j < Constants.dimY; j++) {
-                sb.append(b.grid[i][j]);
-            }
+        for (int k = 0; k < b.geometry.size; k++) {
+            sb.append(Geometry.tileAt(b.state, k));
         }
         return sb.toString();
     }
 
     /**
-     * constructs a path to the solution by calling pathHelper on the best found board and stores it in an ArrayList.
-     * @return the reverse of the resulting ArrayList because of how the recursive function is constructed
+     * stores the followed solution as the path for getNextBoard. A tree that followed nothing, such as one for a board that
+     * can't be solved, gets an empty path.
      */
     public void createPath() {
-        path = new ArrayList<>();
-        pathHelper(oldBoards.get(convertBoardToStringSequence(bestBoardFound)), path);
-        Collections.reverse(path);
-    }
-    public Board getNextBoard(){
-        return path.get(currentBoardIndex++);
+        currentBoardIndex = 0;
+        currentBoard = new Board(rootNode.board);
+        solution = followed != null ? followed : new Solution(rootNode.board, new byte[0], 0);
     }
 
     /**
-     * recursively adds nodes to an ArrayList by following a given node up its tree until it reaches a root node whose predecessor is null
-     * @param n
-     * @param path
+     * applies the next move of the path created by createPath
+     * @return the board after it
      */
-    public void pathHelper(Node n, ArrayList<Board> path) {
-        if (n.previousBoard == null) {
-            return;
-        }
-        path.add(n.board);
-        pathHelper(oldBoards.get(convertBoardToStringSequence(n.previousBoard)), path);
+    public Board getNextBoard() {
+        currentBoard.move(solution.moves[currentBoardIndex++]);
+        return new Board(currentBoard);
     }
 }
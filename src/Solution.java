@@ -0,0 +1,100 @@
+/**
+ * A solution found for a board, stored as the list of directions the blank moves in (see Geometry).
+ * Boards along the way are only built when asked for, by replaying the moves on a copy of the start board.
+ * moves is null when the board could not be solved, in which case bestBoardFound holds the closest board that can be reached,
+ * or when a memory-bounded search ran out of budget, in which case budgetExhausted is set and bestBoardFound holds the board
+ * closest to the goal that the search reached.
+ * stats describes the search that produced it.
+ * Created by help
+ */
+public class Solution {
+    private static final char[] LETTERS = {'U', 'D', 'L', 'R'};
+
+    final Board start;
+    final byte[] moves;
+    final long expanded;
+    Board bestBoardFound;
+    boolean budgetExhausted;
+    SearchStats stats;
+
+    Solution(Board start, byte[] moves, long expanded) {
+        this.start = new Board(start);
+        this.moves = moves;
+        this.expanded = expanded;
+    }
+
+    /**
+     * builds the result for a board that failed the solvability check, without searching
+     * @param start
+     * @return
+     */
+    static Solution unsolvable(Board start) {
+        Solution solution = new Solution(start, null, 0);
+        solution.bestBoardFound = start.closestReachableBoard();
+        return solution;
+    }
+
+    /**
+     * builds the result of a search that gave up because it ran out of memory
+     * @param start
+     * @param bestBoardFound
+     * @param expanded
+     * @return
+     */
+    static Solution budgetExhausted(Board start, Board bestBoardFound, long expanded) {
+        Solution solution = new Solution(start, null, expanded);
+        solution.bestBoardFound = bestBoardFound;
+        solution.budgetExhausted = true;
+        return solution;
+    }
+
+    /**
+     * finishes the stats of the solve that produced this solution and attaches them to it
+     * @param stats
+     * @return this
+     */
+    Solution record(SearchStats stats) {
+        stats.finish(isSolved() ? length() : -1);
+        this.stats = stats;
+        return this;
+    }
+
+    public boolean isSolved() {
+        return moves != null;
+    }
+
+    /**
+     * @return the number of moves in the solution
+     */
+    public int length() {
+        return moves == null ? 0 : moves.length;
+    }
+
+    /**
+     * replays the first step moves on a copy of the start board
+     * @param step
+     * @return the board after step moves
+     */
+    public Board boardAfter(int step) {
+        Board b = new Board(start);
+        for (int i = 0; i < step; i++) {
+            b.move(moves[i]);
+        }
+        return b;
+    }
+
+    /**
+     * @return the moves as a string of U, D, L and R, naming the direction the blank moves in
+     */
+    @Override
+    public String toString() {
+        if (moves == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(moves.length);
+        for (byte m : moves) {
+            sb.append(LETTERS[m]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,266 @@
+/**
+ * Remembers shortest solutions across solves and sessions. Every board along a shortest path is itself solved by the rest of
+ * that path, so storing a solution records each board on it with its first move and how many moves it is from the goal. Any
+ * later solve that starts on one of those boards is answered by following the moves, without searching.
+ *
+ * Entries live in two StateTables, a current and a previous generation. Stores go to current; once current holds capacity
+ * boards it becomes previous and the old previous is dropped. A hit in previous copies its path back into current, so paths
+ * that keep being asked for survive and the least recently used ones age out, with no per-entry bookkeeping.
+ * Lookups share a read lock and only take the write lock to move a path between generations.
+ *
+ * The cache is kept in Constants.dataDirectory, one file per board shape, loaded on first use and written back when the
+ * JVM exits if anything was added. Only packed shapes are cached.
+ * Created by help
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+public class SolutionCache {
+    public static final int DEFAULT_CAPACITY = Integer.getInteger("eighttiles.cacheSize", 1 << 18);
+    private static final int MAGIC = 0x534F4C31; // "SOL1"
+
+    private static final ConcurrentHashMap<Geometry, SolutionCache> loaded = new ConcurrentHashMap<>();
+
+    final Geometry geometry;
+    private final int capacity;
+    private final StampedLock lock = new StampedLock();
+    private StateTable current;
+    private StateTable previous;
+    private volatile boolean dirty;
+
+    SolutionCache(Geometry geometry, int capacity) {
+        this.geometry = geometry;
+        this.capacity = capacity;
+        current = new StateTable(capacity);
+        previous = new StateTable();
+    }
+
+    /**
+     * returns the cache for a geometry, reading it from disk the first time and saving it when the JVM exits
+     * @param geometry
+     * @return the cache, or null if the shape is too large to cache
+     */
+    public static SolutionCache forGeometry(Geometry geometry) {
+        if (!geometry.isPacked()) {
+            return null;
+        }
+        return loaded.computeIfAbsent(geometry, g -> {
+            SolutionCache cache = new SolutionCache(g, DEFAULT_CAPACITY);
+            Path path = defaultPath(g);
+            if (Files.exists(path)) {
+                try {
+                    cache.load(path);
+                } catch (IOException | IllegalStateException e) {
+                    Constants.errorStream.println("Could not read solution cache " + path + ": " + e.getMessage());
+                }
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                if (cache.dirty) {
+                    try {
+                        cache.save(path);
+                    } catch (IOException e) {
+                        Constants.errorStream.println("Could not write solution cache " + path + ": " + e.getMessage());
+                    }
+                }
+            }, "solution-cache-writer"));
+            return cache;
+        });
+    }
+
+    static Path defaultPath(Geometry geometry) {
+        return Constants.dataDirectory.resolve("solutions-" + geometry + ".bin");
+    }
+
+    /**
+     * @return the number of boards cached
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return current.size() + previous.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * follows the cached moves from start to the goal
+     * @param start
+     * @return a shortest solution, or null if start isn't cached
+     */
+    public Solution lookup(Board start) {
+        byte[] moves;
+        long stamp = lock.readLock();
+        try {
+            moves = walk(start.state, start.blank);
+            if (moves == null) {
+                return null;
+            }
+            if (!current.contains(start.state)) {
+                long writeStamp = lock.tryConvertToWriteLock(stamp);
+                if (writeStamp == 0) {
+                    lock.unlockRead(stamp);
+                    writeStamp = lock.writeLock();
+                }
+                stamp = writeStamp;
+                insert(start.state, start.blank, moves);
+            }
+        } finally {
+            lock.unlock(stamp);
+        }
+        // only a hit is recorded, so a miss costs nothing beyond the walk
+        SearchStats stats = new SearchStats("CACHE");
+        stats.start(start);
+        stats.expanded = moves.length;
+        return new Solution(start, moves, 0).record(stats);
+    }
+
+    /**
+     * records every board along a shortest solution
+     * @param solution
+     */
+    public void store(Solution solution) {
+        if (!solution.isSolved() || solution.length() == 0) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            insert(solution.start.state, solution.start.blank, solution.moves);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * must hold the read or write lock
+     * @param state
+     * @param blank
+     * @return the moves from state to the goal, or null if some board on the way isn't cached
+     */
+    private byte[] walk(long state, int blank) {
+        int distance = distanceOf(state);
+        if (distance < 0) {
+            return null;
+        }
+        byte[] moves = new byte[distance];
+        for (int i = 0; i < moves.length; i++) {
+            int move = current.contains(state) ? current.moveOf(state) : previous.moveOf(state);
+            if (move == Geometry.NO_MOVE) {
+                return null;
+            }
+            moves[i] = (byte) move;
+            int next = geometry.target(blank, move);
+            state = Geometry.slide(state, blank, next);
+            blank = next;
+        }
+        return state == geometry.goal ? moves : null;
+    }
+
+    private int distanceOf(long state) {
+        int distance = current.costOf(state);
+        return distance >= 0 ? distance : previous.costOf(state);
+    }
+
+    /**
+     * must hold the write lock
+     * @param state
+     * @param blank
+     * @param moves a shortest solution from state
+     */
+    private void insert(long state, int blank, byte[] moves) {
+        for (int i = 0; i < moves.length; i++) {
+            if (current.size() >= capacity) {
+                previous = current;
+                current = new StateTable(capacity);
+            }
+            current.put(state, moves[i], moves.length - i);
+            int next = geometry.target(blank, moves[i]);
+            state = Geometry.slide(state, blank, next);
+            blank = next;
+        }
+        dirty = true;
+    }
+
+    /**
+     * reads boards written by save, each as its packed state, first move and distance
+     * @param path
+     * @throws IOException
+     */
+    void load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != geometry.rows || in.readInt() != geometry.cols) {
+                throw new IllegalStateException("not a solution cache for " + geometry);
+            }
+            int count = in.readInt();
+            long stamp = lock.writeLock();
+            try {
+                for (int i = 0; i < count; i++) {
+                    long state = in.readLong();
+                    int move = in.readByte();
+                    int distance = in.readUnsignedByte();
+                    if (current.size() < capacity) {
+                        current.put(state, move, distance);
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * writes every cached board, current generation first, through a temporary file so readers never see half a file
+     * @param path
+     * @throws IOException
+     */
+    void save(Path path) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path tmp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        long stamp = lock.readLock();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            int count = current.size();
+            for (int slot = 0; slot < previous.capacity(); slot++) {
+                if (previous.keyAt(slot) != 0 && !current.contains(previous.keyAt(slot))) {
+                    count++;
+                }
+            }
+            out.writeInt(MAGIC);
+            out.writeInt(geometry.rows);
+            out.writeInt(geometry.cols);
+            out.writeInt(count);
+            write(out, current, null);
+            write(out, previous, current);
+            dirty = false;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * writes the boards of table that aren't in skip
+     * @param out
+     * @param table
+     * @param skip may be null
+     * @throws IOException
+     */
+    private static void write(DataOutputStream out, StateTable table, StateTable skip) throws IOException {
+        for (int slot = 0; slot < table.capacity(); slot++) {
+            long state = table.keyAt(slot);
+            if (state != 0 && (skip == null || !skip.contains(state))) {
+                out.writeLong(state);
+                out.writeByte(table.moveAt(slot));
+                out.writeByte(table.costAt(slot));
+            }
+        }
+    }
+}
@@ -0,0 +1,288 @@
+/**
+ * Solves boards for other processes over HTTP on the loopback interface, without the GUI: java SolveService [port]
+ * POST /solve with boards one per line in the body, in the format BatchSolver reads, and get back one line per board in the
+ * same order and format as BatchSolver prints, where a board can also end in "timeout" or "budget". Two optional query
+ * parameters tighten the limits of a request: deadline, in milliseconds, and nodes, the number of boards a search may
+ * expand. Neither can be raised above the service's own -Deighttiles.serviceDeadline (1000 ms) and -Deighttiles.nodeBudget.
+ *
+ * Requests are handled on virtual threads when the JVM has them (Java 21 and later) and on a cached thread pool otherwise,
+ * but handlers never search: they queue each board as a job and wait for its result. One solver thread per core takes every
+ * job waiting, up to MAX_BATCH and a fair share of the queue, and solves them back to back with its own solver, so a burst
+ * of small requests costs a few wakeups and no solver allocations. Shapes with a DistanceOracle are answered from it, and
+ * others from the SolutionCache or IDA*, which gives up once the deadline or node budget is passed.
+ * At most -Deighttiles.serviceQueue boards are queued or solving at once. A request that would go over is refused straight
+ * away with 503 and Retry-After, so callers back off instead of piling up behind a saturated pool.
+ * Created by help
+ */
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class SolveService {
+    public static final int DEFAULT_PORT = Integer.getInteger("eighttiles.port", 8077);
+    public static final long DEFAULT_DEADLINE_MILLIS = Long.getLong("eighttiles.serviceDeadline", 1000);
+    public static final int DEFAULT_QUEUE = Integer.getInteger("eighttiles.serviceQueue", 4096);
+    static final int MAX_BATCH = 64;
+
+    final Geometry geometry;
+    private final int threads;
+    private final int capacity;
+    private final Semaphore permits;
+    private final LinkedBlockingQueue<Job> jobs = new LinkedBlockingQueue<>();
+    private final ExecutorService requests;
+    private final ArrayList<Thread> workers = new ArrayList<>();
+    private HttpServer server;
+
+    /**
+     * a board waiting to be solved, and the limits of the request it came in
+     */
+    private static final class Job implements SearchProgress {
+        final String input;
+        final long deadlineNanos;
+        final long nodes;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        long expanded;
+
+        Job(String input, long deadlineNanos, long nodes) {
+            this.input = input;
+            this.deadlineNanos = deadlineNanos;
+            this.nodes = nodes;
+        }
+
+        @Override
+        public void update(long expanded, int bestHeuristic) {
+            this.expanded = expanded;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return expanded >= nodes || expired();
+        }
+
+        boolean expired() {
+            return System.nanoTime() - deadlineNanos >= 0;
+        }
+    }
+
+    public SolveService(Geometry geometry, int threads, int capacity) {
+        this.geometry = geometry;
+        this.threads = threads;
+        this.capacity = capacity;
+        permits = new Semaphore(capacity);
+        requests = requestExecutor();
+    }
+
+    /**
+     * @return an executor that starts a virtual thread per task if this JVM has them, looked up reflectively so the service
+     * still compiles and runs on Java 17, and a cached pool of daemon threads otherwise
+     */
+    static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "solve-request");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * starts the solver threads and listens on the loopback interface
+     * @param port 0 for any free port
+     * @return the port listened on
+     * @throws IOException
+     */
+    public int start(int port) throws IOException {
+        Heuristic heuristic = geometry.size > DistanceOracle.MAX_SIZE ? Constants.defaultHeuristic.create(geometry) : null;
+        for (int i = 0; i < threads; i++) {
+            IdaStarSolver solver = heuristic != null ? new IdaStarSolver(geometry, heuristic) : null;
+            Thread worker = new Thread(() -> work(solver), "solver-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(requests);
+        server.createContext("/solve", this::handle);
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * stops listening, and answers every board still queued with "cancelled"
+     */
+    public void stop() {
+        server.stop(0);
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        Job job;
+        while ((job = jobs.poll()) != null) {
+            job.result.complete(job.input + "\tcancelled");
+        }
+        requests.shutdown();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, "POST boards one per line to /solve");
+                return;
+            }
+            long deadlineMillis = DEFAULT_DEADLINE_MILLIS;
+            long nodes = Constants.nodeBudget;
+            try {
+                deadlineMillis = Math.min(deadlineMillis, parameter(exchange.getRequestURI(), "deadline", deadlineMillis));
+                nodes = Math.min(nodes, parameter(exchange.getRequestURI(), "nodes", nodes));
+            } catch (NumberFormatException e) {
+                respond(exchange, 400, "deadline and nodes must be whole numbers");
+                return;
+            }
+            ArrayList<String> boards = new ArrayList<>();
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null && boards.size() <= capacity) {
+                    if (!line.trim().isEmpty()) {
+                        boards.add(line.trim());
+                    }
+                }
+            }
+            if (boards.isEmpty()) {
+                respond(exchange, 400, "no boards given");
+                return;
+            }
+            if (boards.size() > capacity) {
+                respond(exchange, 413, "at most " + capacity + " boards per request");
+                return;
+            }
+            if (!permits.tryAcquire(boards.size())) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 503, "solver pool is saturated, retry later");
+                return;
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+            Job[] queued = new Job[boards.size()];
+            for (int i = 0; i < queued.length; i++) {
+                queued[i] = new Job(boards.get(i), deadline, nodes);
+                jobs.add(queued[i]);
+            }
+            StringBuilder sb = new StringBuilder();
+            for (Job job : queued) {
+                sb.append(job.result.join()).append('\n');
+            }
+            respond(exchange, 200, sb.toString());
+        }
+    }
+
+    private static long parameter(URI uri, String name, long fallback) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return fallback;
+        }
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "=")) {
+                long value = Long.parseLong(pair.substring(name.length() + 1));
+                if (value < 0) {
+                    throw new NumberFormatException(name + " can't be negative");
+                }
+                return value;
+            }
+        }
+        return fallback;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = (body.endsWith("\n") ? body : body + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * takes batches of jobs until interrupted
+     * @param solver this thread's solver, null for shapes with a distance oracle
+     */
+    private void work(IdaStarSolver solver) {
+        ArrayList<Job> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                batch.add(jobs.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            jobs.drainTo(batch, Math.min(MAX_BATCH, jobs.size() / threads + 1) - 1);
+            for (Job job : batch) {
+                String result;
+                try {
+                    result = solve(job, solver);
+                } catch (RuntimeException e) {
+                    result = job.input + "\terror";
+                }
+                job.result.complete(result);
+                permits.release();
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * @param job
+     * @param solver
+     * @return the line to answer with for the job's board
+     */
+    String solve(Job job, IdaStarSolver solver) {
+        if (job.expired()) {
+            return job.input + "\ttimeout";
+        }
+        int[] tiles;
+        try {
+            tiles = Board.parseTiles(job.input, geometry.size);
+        } catch (NumberFormatException e) {
+            tiles = null;
+        }
+        if (!Board.isPermutation(tiles)) {
+            return job.input + "\tinvalid";
+        }
+        Board board = new Board(geometry, tiles);
+        if (!board.isSolvable()) {
+            return job.input + "\tunsolvable";
+        }
+        DistanceOracle oracle = DistanceOracle.forGeometry(geometry);
+        Solution solution;
+        try {
+            solution = oracle != null ? oracle.solve(board) : board.solveCached(() -> solver.solve(board, job));
+        } catch (CancellationException e) {
+            return job.input + (job.expired() ? "\ttimeout" : "\tbudget");
+        }
+        return job.input + "\t" + solution.length() + "\t" + solution;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        SolveService service = new SolveService(Geometry.DEFAULT, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE);
+        port = service.start(port);
+        Constants.outputStream.println("Solving " + Geometry.DEFAULT + " boards on http://localhost:" + port + "/solve");
+    }
+}
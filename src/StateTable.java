@@ -0,0 +1,206 @@
+/**
+ * An open-addressing hash table from packed board states to the move that produced them and their path cost.
+ * Keys, moves and costs live in parallel primitive arrays probed linearly, so lookups never allocate.
+ * 0 is never a valid packed state (every board has exactly one blank), so it marks an empty slot.
+ * The table doubles once it is more than LOAD_FACTOR full, and never grows if it was sized for all it will hold.
+ * Created by help
+ */
+
+import java.util.Arrays;
+
+public class StateTable {
+    static final float LOAD_FACTOR = 0.5f;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private byte[] moves;
+    private int[] costs;
+    private int mask;
+    private int size;
+    private int threshold;
+
+    public StateTable() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expected number of entries the table should hold before it has to grow
+     */
+    public StateTable(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expected) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        moves = new byte[capacity];
+        costs = new int[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int hash(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    /**
+     * returns the slot holding key, or the negative of (empty slot + 1) where it would go
+     * @param key
+     * @return
+     */
+    private int slotOf(long key) {
+        int slot = hash(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -slot - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(long key) {
+        return slotOf(key) >= 0;
+    }
+
+    /**
+     * returns the move stored for key, or Geometry.NO_MOVE if it is absent or is the root
+     * @param key
+     * @return
+     */
+    public int moveOf(long key) {
+        int slot = slotOf(key);
+        return slot >= 0 ? moves[slot] : Geometry.NO_MOVE;
+    }
+
+    /**
+     * returns the cost stored for key, or -1 if it is absent
+     * @param key
+     * @return
+     */
+    public int costOf(long key) {
+        int slot = slotOf(key);
+        return slot >= 0 ? costs[slot] : -1;
+    }
+
+    /**
+     * inserts key only if it isn't already in the table
+     * @param key
+     * @param move
+     * @param cost
+     * @return true if key was inserted
+     */
+    public boolean add(long key, int move, int cost) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            return false;
+        }
+        insert(-slot - 1, key, move, cost);
+        return true;
+    }
+
+    /**
+     * inserts key or overwrites the move and cost stored for it
+     * @param key
+     * @param move
+     * @param cost
+     */
+    public void put(long key, int move, int cost) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            moves[slot] = (byte) move;
+            costs[slot] = cost;
+        } else {
+            insert(-slot - 1, key, move, cost);
+        }
+    }
+
+    /**
+     * removes key, shifting back the entries probed past it so no lookup has to cross an empty slot
+     * @param key
+     * @return true if key was in the table
+     */
+    public boolean remove(long key) {
+        int hole = slotOf(key);
+        if (hole < 0) {
+            return false;
+        }
+        for (int slot = (hole + 1) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+            // the entry in slot may fill the hole only if the hole lies between its home slot and slot
+            if (((slot - hash(keys[slot])) & mask) >= ((slot - hole) & mask)) {
+                keys[hole] = keys[slot];
+                moves[hole] = moves[slot];
+                costs[hole] = costs[slot];
+                hole = slot;
+            }
+        }
+        keys[hole] = 0;
+        size--;
+        return true;
+    }
+
+    private void insert(int slot, long key, int move, int cost) {
+        keys[slot] = key;
+        moves[slot] = (byte) move;
+        costs[slot] = cost;
+        if (++size > threshold) {
+            grow();
+        }
+    }
+
+    /**
+     * doubles the capacity and reinserts every entry
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        byte[] oldMoves = moves;
+        int[] oldCosts = costs;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = -slotOf(oldKeys[i]) - 1;
+                keys[slot] = oldKeys[i];
+                moves[slot] = oldMoves[i];
+                costs[slot] = oldCosts[i];
+            }
+        }
+    }
+
+    /**
+     * @return the number of slots, for walking every entry with keyAt, moveAt and costAt
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * @param slot
+     * @return the key in slot, or 0 if it is empty
+     */
+    long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    int moveAt(int slot) {
+        return moves[slot];
+    }
+
+    int costAt(int slot) {
+        return costs[slot];
+    }
+
+    /**
+     * empties the table, keeping its current capacity
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        size = 0;
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * Walking distance. Looking only at rows, a board reduces to how many tiles that belong in each row currently sit in each
+ * row, plus the row the blank is in; a vertical move trades the blank with one tile of an adjacent row. The fewest vertical
+ * moves that sort those counts out is a lower bound on the vertical moves any solution needs, and the same goes for columns
+ * and horizontal moves, so the two can be added. Unlike Manhattan distance this sees tiles getting in each other's way.
+ *
+ * Every reachable set of counts is enumerated once per board shape by a breadth-first search from the goal and numbered in
+ * the order it was found; a StateTable maps the counts packed into a long to that number. Each table also records, for every
+ * set of counts, which set a move of each tile class up or down leads to. A board's summary is the number of its row counts
+ * and of its column counts, and a move only changes the counts in one direction, so delta and summaryAfter follow one
+ * recorded move and read two distances without looking at the board.
+ * Created by help
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class WalkingDistanceHeuristic implements Heuristic {
+    private static final ConcurrentHashMap<Integer, Table> tables = new ConcurrentHashMap<>();
+
+    final Geometry geometry;
+    private final Table vertical;
+    private final Table horizontal;
+
+    public WalkingDistanceHeuristic(Geometry geometry) {
+        if (!geometry.isPacked()) {
+            throw new IllegalArgumentException(geometry + " boards are too large for walking distance");
+        }
+        this.geometry = geometry;
+        vertical = tables.computeIfAbsent(geometry.rows << 8 | geometry.cols, key -> new Table(geometry.rows, geometry.cols));
+        horizontal = tables.computeIfAbsent(geometry.cols << 8 | geometry.rows, key -> new Table(geometry.cols, geometry.rows));
+    }
+
+    @Override
+    public int estimate(long state) {
+        long summary = summarize(state);
+        return vertical.distances[(int) (summary >>> 32)] + horizontal.distances[(int) summary];
+    }
+
+    /**
+     * @param state
+     * @return the number of the board's row counts in the high half and of its column counts in the low half
+     */
+    @Override
+    public long summarize(long state) {
+        long rows = 0;
+        long cols = 0;
+        int blank = 0;
+        for (int k = 0; k < geometry.size; k++) {
+            int tile = Geometry.tileAt(state, k);
+            if (tile == 0) {
+                blank = k;
+            } else {
+                rows += vertical.unit(k / geometry.cols, (tile - 1) / geometry.cols);
+                cols += horizontal.unit(k % geometry.cols, (tile - 1) % geometry.cols);
+            }
+        }
+        return (long) vertical.idOf(vertical.withBlank(rows, blank / geometry.cols)) << 32
+                | horizontal.idOf(horizontal.withBlank(cols, blank % geometry.cols));
+    }
+
+    @Override
+    public long summaryAfter(long summary, int tile, int from, int to) {
+        int rows = (int) (summary >>> 32);
+        int cols = (int) summary;
+        if (from / geometry.cols == to / geometry.cols) {
+            cols = horizontal.after(cols, from % geometry.cols > to % geometry.cols, (tile - 1) % geometry.cols);
+        } else {
+            rows = vertical.after(rows, from > to, (tile - 1) / geometry.cols);
+        }
+        return (long) rows << 32 | cols;
+    }
+
+    @Override
+    public int delta(long state, int tile, int from, int to) {
+        return delta(state, summarize(state), tile, from, to);
+    }
+
+    @Override
+    public int delta(long state, long summary, int tile, int from, int to) {
+        if (from / geometry.cols == to / geometry.cols) {
+            int cols = (int) summary;
+            return horizontal.distances[horizontal.after(cols, from % geometry.cols > to % geometry.cols,
+                    (tile - 1) % geometry.cols)] - horizontal.distances[cols];
+        }
+        int rows = (int) (summary >>> 32);
+        return vertical.distances[vertical.after(rows, from > to, (tile - 1) / geometry.cols)] - vertical.distances[rows];
+    }
+
+    /**
+     * The walking distance of every reachable set of counts for boards with the given number of lines of perLine cells.
+     * Count (line, class) takes bits bits at position bits * (line * lines + class), and the blank's line sits above them.
+     */
+    static class Table {
+        final int lines;
+        final int bits;
+        final int blankShift;
+        // the number of each set of counts, in the order the search found them
+        final StateTable ids = new StateTable();
+        final int[] distances;
+        // moves[(id * 2 + down) * lines + class]: the counts after a tile of that class moves into the blank's line from the
+        // line below it (down = 1) or above it, or -1 if there is no such tile
+        final int[] moves;
+
+        Table(int lines, int perLine) {
+            this.lines = lines;
+            bits = 32 - Integer.numberOfLeadingZeros(perLine);
+            blankShift = bits * lines * lines;
+            if (blankShift + 32 - Integer.numberOfLeadingZeros(lines) > 63) {
+                throw new IllegalArgumentException("Walking distance can't be packed for " + lines + " lines of " + perLine);
+            }
+            long goal = 0;
+            for (int line = 0; line < lines; line++) {
+                goal += unit(line, line) * (line == lines - 1 ? perLine - 1 : perLine);
+            }
+            goal = withBlank(goal, lines - 1);
+            ids.add(goal, Geometry.NO_MOVE, 0);
+
+            long[] queue = new long[1024];
+            int[] found = new int[1024];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = goal;
+            while (head < tail) {
+                long key = queue[head];
+                int cost = found[head++];
+                int blank = (int) (key >>> blankShift);
+                long counts = key & ((1L << blankShift) - 1);
+                for (int next = blank - 1; next <= blank + 1; next += 2) {
+                    if (next < 0 || next >= lines) {
+                        continue;
+                    }
+                    for (int c = 0; c < lines; c++) {
+                        if (count(counts, next, c) == 0) {
+                            continue;
+                        }
+                        long child = withBlank(counts - unit(next, c) + unit(blank, c), next);
+                        if (ids.add(child, Geometry.NO_MOVE, tail)) {
+                            if (tail == queue.length) {
+                                queue = Arrays.copyOf(queue, queue.length * 2);
+                                found = Arrays.copyOf(found, queue.length);
+                            }
+                            found[tail] = cost + 1;
+                            queue[tail++] = child;
+                        }
+                    }
+                }
+            }
+            distances = Arrays.copyOf(found, tail);
+            moves = new int[tail * 2 * lines];
+            Arrays.fill(moves, -1);
+            for (int id = 0; id < tail; id++) {
+                int blank = (int) (queue[id] >>> blankShift);
+                long counts = queue[id] & ((1L << blankShift) - 1);
+                for (int down = 0; down < 2; down++) {
+                    int next = blank + (down == 1 ? 1 : -1);
+                    if (next < 0 || next >= lines) {
+                        continue;
+                    }
+                    for (int c = 0; c < lines; c++) {
+                        if (count(counts, next, c) > 0) {
+                            moves[(id * 2 + down) * lines + c] = ids.costOf(withBlank(counts - unit(next, c) + unit(blank, c), next));
+                        }
+                    }
+                }
+            }
+        }
+
+        long unit(int line, int tileClass) {
+            return 1L << (bits * (line * lines + tileClass));
+        }
+
+        int count(long counts, int line, int tileClass) {
+            return (int) (counts >>> (bits * (line * lines + tileClass))) & ((1 << bits) - 1);
+        }
+
+        long withBlank(long counts, int blankLine) {
+            return counts | (long) blankLine << blankShift;
+        }
+
+        int idOf(long key) {
+            return ids.costOf(key);
+        }
+
+        /**
+         * @param id
+         * @param down whether the tile comes from the line after the blank's
+         * @param tileClass
+         * @return the id of the counts after the move
+         */
+        int after(int id, boolean down, int tileClass) {
+            return moves[(id * 2 + (down ? 1 : 0)) * lines + tileClass];
+        }
+    }
+}
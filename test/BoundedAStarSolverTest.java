@@ -0,0 +1,86 @@
+/**
+ * Checks BoundedAStarSolver against the 3x3 DistanceOracle on a seeded set of boards: every solution it returns must be a
+ * shortest one, it may only report budgetExhausted for boards whose shortest solution doesn't fit in the budget or after
+ * giving up on regrowing, and every search must end on its own.
+ * Run after compiling src: java -cp out:test BoundedAStarSolverTest [boards]. Exits with 1 on the first failure.
+ * Created by help
+ */
+
+import java.util.concurrent.CancellationException;
+
+public class BoundedAStarSolverTest {
+    static final long SEED = 2024;
+    // far more than any search should take, so a search that gets here is taken as hung
+    static final long MAX_EXPANDED = 10_000_000;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        Geometry geometry = Geometry.of(3, 3);
+        DistanceOracle oracle = DistanceOracle.forGeometry(geometry);
+        BoardGenerator generator = new BoardGenerator(geometry, SEED);
+        Board[] boards = new Board[count];
+        int[] shortest = new int[count];
+        for (int i = 0; i < count; i++) {
+            boards[i] = generator.toBoard(generator.randomState());
+            shortest[i] = oracle.solve(boards[i]).length();
+        }
+        for (int budget : new int[]{20, 30, 60, 1000}) {
+            BoundedAStarSolver solver = new BoundedAStarSolver(geometry, new ManhattanHeuristic(geometry), budget);
+            int solved = 0;
+            int exhausted = 0;
+            int stalled = 0;
+            for (int i = 0; i < count; i++) {
+                Solution solution = null;
+                try {
+                    solution = solver.solve(boards[i], new Cutoff());
+                } catch (CancellationException e) {
+                    check(false, boards[i], budget, "still searching after " + MAX_EXPANDED + " boards");
+                }
+                if (solution.budgetExhausted) {
+                    if (shortest[i] + 1 > budget) {
+                        exhausted++;
+                    } else {
+                        check(solution.stats.expanded > (long) BoundedAStarSolver.MAX_REGROWTHS * budget, boards[i], budget,
+                                "budget exhausted, but a " + shortest[i] + " move solution fits");
+                        stalled++;
+                    }
+                    continue;
+                }
+                Board board = new Board(boards[i]);
+                for (byte move : solution.moves) {
+                    board.move(move);
+                }
+                check(board.isSolved(), boards[i], budget, "the moves don't solve the board");
+                check(solution.length() == shortest[i], boards[i], budget, solution.length() + " moves instead of " + shortest[i]);
+                solved++;
+            }
+            Constants.outputStream.println("budget " + budget + ": " + solved + " shortest, " + exhausted + " exhausted, "
+                    + stalled + " given up");
+        }
+    }
+
+    private static void check(boolean ok, Board board, int budget, String message) {
+        if (!ok) {
+            Constants.outputStream.println("FAILED with a budget of " + budget + ": " + message);
+            board.printBoard();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * cancels a search after MAX_EXPANDED boards
+     */
+    private static final class Cutoff implements SearchProgress {
+        long expanded;
+
+        @Override
+        public void update(long expanded, int bestHeuristic) {
+            this.expanded = expanded;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return expanded >= MAX_EXPANDED;
+        }
+    }
+}
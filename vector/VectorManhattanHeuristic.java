@@ -0,0 +1,78 @@
+/**
+ * Manhattan distance scored for a batch of packed boards at once with the incubating Vector API, for ManhattanHeuristic.create
+ * to hand out when the JVM has it. Compile and run with --add-modules jdk.incubator.vector; see the README.
+ *
+ * A batch is loaded as longs and read back as ints, so each int lane holds eight cells of one board: the low half of the
+ * board in even lanes and the high half in odd ones. For each of the eight nibble positions every lane cuts out its tile,
+ * works out the tile's home row and column with a multiply and shift instead of a division or a table, and adds its
+ * distance from the lane's own cell, whose row and column are held in a constant vector per position. Blanks and the
+ * unused cells past the end of the board read as tile 0 and are masked out. Adding the two halves of each long gives the
+ * estimate of each board. Boards left over after the last full vector are scored one by one.
+ * Created by help
+ */
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+public class VectorManhattanHeuristic extends ManhattanHeuristic {
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> RESULTS = VectorSpecies.of(int.class,
+            VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+    private static final int SHIFT = 8;
+
+    private final IntVector[] rowOf = new IntVector[8];
+    private final IntVector[] colOf = new IntVector[8];
+    private final int divisor;
+
+    public VectorManhattanHeuristic(Geometry geometry) {
+        super(geometry);
+        if (INTS.vectorBitSize() != LONGS.vectorBitSize() || LONGS.length() < 2) {
+            throw new IllegalStateException("no usable vector shape");
+        }
+        // home / cols == (home * divisor) >>> SHIFT for every home cell a nibble can name
+        divisor = ((1 << SHIFT) + geometry.cols - 1) / geometry.cols;
+        for (int home = 0; home < 16; home++) {
+            if ((home * divisor) >>> SHIFT != home / geometry.cols) {
+                throw new IllegalStateException("can't divide by " + geometry.cols + " with a multiply");
+            }
+        }
+        int[] rows = new int[INTS.length()];
+        int[] cols = new int[INTS.length()];
+        for (int c = 0; c < 8; c++) {
+            for (int lane = 0; lane < rows.length; lane++) {
+                int k = 8 * (lane & 1) + c;
+                rows[lane] = k / geometry.cols;
+                cols[lane] = k % geometry.cols;
+            }
+            rowOf[c] = IntVector.fromArray(INTS, rows, 0);
+            colOf[c] = IntVector.fromArray(INTS, cols, 0);
+        }
+    }
+
+    @Override
+    public void estimateAll(long[] states, int[] estimates, int count) {
+        int i = 0;
+        for (int end = LONGS.loopBound(count); i < end; i += LONGS.length()) {
+            IntVector cells = LongVector.fromArray(LONGS, states, i).reinterpretAsInts();
+            IntVector sum = IntVector.zero(INTS);
+            for (int c = 0; c < 8; c++) {
+                IntVector tile = cells.lanewise(VectorOperators.LSHR, 4 * c).and(15);
+                IntVector home = tile.sub(1);
+                IntVector homeRow = home.mul(divisor).lanewise(VectorOperators.LSHR, SHIFT);
+                IntVector homeCol = home.sub(homeRow.mul(geometry.cols));
+                IntVector distance = homeRow.sub(rowOf[c]).abs().add(homeCol.sub(colOf[c]).abs());
+                sum = sum.add(distance, tile.compare(VectorOperators.NE, 0));
+            }
+            LongVector halves = sum.reinterpretAsLongs();
+            LongVector total = halves.and(0xFFFFFFFFL).add(halves.lanewise(VectorOperators.LSHR, 32));
+            ((IntVector) total.convertShape(VectorOperators.L2I, RESULTS, 0)).intoArray(estimates, i);
+        }
+        for (; i < count; i++) {
+            estimates[i] = estimate(states[i]);
+        }
+    }
+}